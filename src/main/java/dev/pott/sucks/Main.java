@@ -18,8 +18,7 @@ public class Main {
         final Logger logger = LoggerFactory.getLogger(Main.class);
         SslContextFactory.Client sslContextFactory = new SslContextFactory.Client();
         sslContextFactory.setTrustAll(true);
-        HttpClient httpClient = new HttpClient(sslContextFactory);
-        httpClient.setConnectTimeout(60);
+        HttpClient httpClient = new EcovacsHttpClientBuilder().setSslContextFactory(sslContextFactory).build();
         try {
             httpClient.start();
         } catch (Exception e) {
@@ -0,0 +1,12 @@
+package dev.pott.sucks.api;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+@NonNullByDefault
+public interface CircuitBreakerListener {
+    /**
+     * Called on the thread causing the transition. Circuit names are "endpoint:" followed by the endpoint name (login,
+     * authCode, users, productIotMap, devmanager, log) or "device:" followed by the device ID.
+     */
+    void onStateChanged(String circuitName, CircuitBreakerState newState);
+}
@@ -0,0 +1,10 @@
+package dev.pott.sucks.api;
+
+public enum CircuitBreakerState {
+    // Requests pass
+    CLOSED,
+    // Requests fail immediately
+    OPEN,
+    // A limited number of probe requests pass, their outcome decides whether the circuit closes or opens again
+    HALF_OPEN
+}
@@ -0,0 +1,43 @@
+package dev.pott.sucks.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import dev.pott.sucks.api.internal.ColumnarCleanHistoryStore;
+import dev.pott.sucks.cleaner.CleanLogRecord;
+import dev.pott.sucks.cleaner.CleanMode;
+
+/**
+ * Local store of clean history, so that history can be queried without portal calls. Records are identified by their
+ * timestamp; each device has at most one record per second.
+ */
+@NonNullByDefault
+public interface CleanHistoryStore {
+    // Keeps the history of each device in its own subdirectory of the given directory
+    public static CleanHistoryStore create(Path directory) {
+        return new ColumnarCleanHistoryStore(directory);
+    }
+
+    // Adds the records which aren't stored yet, in any order, so the same records can be passed repeatedly
+    public void append(String deviceId, Collection<CleanLogRecord> records) throws IOException;
+
+    // Records in the half-open range [from, to), oldest first. Map images are not stored.
+    public List<CleanLogRecord> getRecords(String deviceId, Instant from, Instant to) throws IOException;
+
+    public SortedMap<LocalDate, CleanHistoryTotals> getDailyTotals(String deviceId, Instant from, Instant to,
+            ZoneId zone) throws IOException;
+
+    public Map<CleanMode, CleanHistoryTotals> getTotalsByMode(String deviceId, Instant from, Instant to)
+            throws IOException;
+
+    public int getRecordCount(String deviceId) throws IOException;
+}
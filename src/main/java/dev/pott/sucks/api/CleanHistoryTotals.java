@@ -0,0 +1,34 @@
+package dev.pott.sucks.api;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+@NonNullByDefault
+public final class CleanHistoryTotals {
+    private final int cleanRuns;
+    private final long cleanedArea;
+    private final long cleaningDurationSeconds;
+
+    public CleanHistoryTotals(int cleanRuns, long cleanedArea, long cleaningDurationSeconds) {
+        this.cleanRuns = cleanRuns;
+        this.cleanedArea = cleanedArea;
+        this.cleaningDurationSeconds = cleaningDurationSeconds;
+    }
+
+    public int getCleanRuns() {
+        return cleanRuns;
+    }
+
+    public long getCleanedArea() {
+        return cleanedArea;
+    }
+
+    public long getCleaningDurationSeconds() {
+        return cleaningDurationSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "CleanHistoryTotals [runs=" + cleanRuns + ", area=" + cleanedArea + ", duration="
+                + cleaningDurationSeconds + "s]";
+    }
+}
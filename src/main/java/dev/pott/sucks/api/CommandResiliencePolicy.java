@@ -0,0 +1,106 @@
+package dev.pott.sucks.api;
+
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Controls how IoT commands react to slow or failing portal requests. Timeouts adapt to the latency observed for
+ * each command, bounded by the minimum and maximum timeout. Retries and hedged requests only apply to read-only
+ * commands; state-changing commands are sent at most once.
+ */
+@NonNullByDefault
+public final class CommandResiliencePolicy {
+    private int maxAttempts = 3;
+    private Duration initialBackoff = Duration.ofMillis(200);
+    private Duration maxBackoff = Duration.ofSeconds(2);
+    private Duration minTimeout = Duration.ofSeconds(3);
+    private Duration maxTimeout = Duration.ofSeconds(20);
+    private double timeoutMultiplier = 3;
+    private boolean hedgingEnabled;
+    private double hedgingQuantile = 0.95;
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    // Including the first attempt, so 1 disables retries
+    public CommandResiliencePolicy setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    // Retry delays are randomized between zero and a limit which starts at this value and doubles with each attempt
+    public CommandResiliencePolicy setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+        return this;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public CommandResiliencePolicy setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    public Duration getMinTimeout() {
+        return minTimeout;
+    }
+
+    public CommandResiliencePolicy setMinTimeout(Duration minTimeout) {
+        this.minTimeout = minTimeout;
+        return this;
+    }
+
+    public Duration getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    // Also used as timeout until enough latency samples of a command have been collected
+    public CommandResiliencePolicy setMaxTimeout(Duration maxTimeout) {
+        this.maxTimeout = maxTimeout;
+        return this;
+    }
+
+    public double getTimeoutMultiplier() {
+        return timeoutMultiplier;
+    }
+
+    // The adaptive timeout is the observed p99 latency times this factor
+    public CommandResiliencePolicy setTimeoutMultiplier(double timeoutMultiplier) {
+        this.timeoutMultiplier = timeoutMultiplier;
+        return this;
+    }
+
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    // If enabled, a second request is sent when the first one takes longer than the hedging quantile of the observed
+    // latency; the first response wins
+    public CommandResiliencePolicy setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+        return this;
+    }
+
+    public double getHedgingQuantile() {
+        return hedgingQuantile;
+    }
+
+    public CommandResiliencePolicy setHedgingQuantile(double hedgingQuantile) {
+        if (hedgingQuantile <= 0 || hedgingQuantile >= 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        this.hedgingQuantile = hedgingQuantile;
+        return this;
+    }
+}
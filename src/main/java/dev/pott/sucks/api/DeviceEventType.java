@@ -0,0 +1,11 @@
+package dev.pott.sucks.api;
+
+// State change notifications which may be coalesced; error reports and connection failures are always delivered
+// individually
+public enum DeviceEventType {
+    BATTERY_LEVEL,
+    CHARGING_STATE,
+    CLEANING_MODE,
+    CLEANING_STATS,
+    WATER_SYSTEM
+}
@@ -0,0 +1,10 @@
+package dev.pott.sucks.api;
+
+// Device state properties pushed by devices over MQTT, which can be served from the device state cache
+public enum DeviceProperty {
+    BATTERY_LEVEL,
+    CHARGE_MODE,
+    CLEAN_MODE,
+    WATER_SYSTEM_PRESENT,
+    MOPPING_WATER_AMOUNT
+}
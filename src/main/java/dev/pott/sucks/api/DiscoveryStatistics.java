@@ -0,0 +1,54 @@
+package dev.pott.sucks.api;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+@NonNullByDefault
+public final class DiscoveryStatistics {
+    private final Duration totalDuration;
+    private final Duration deviceListDuration;
+    private final Map<String, Duration> hydrationDurations;
+    private final Set<String> failedDeviceIds;
+    private final int unsupportedDeviceCount;
+
+    public DiscoveryStatistics(Duration totalDuration, Duration deviceListDuration,
+            Map<String, Duration> hydrationDurations, Set<String> failedDeviceIds, int unsupportedDeviceCount) {
+        this.totalDuration = totalDuration;
+        this.deviceListDuration = deviceListDuration;
+        this.hydrationDurations = Collections.unmodifiableMap(hydrationDurations);
+        this.failedDeviceIds = Collections.unmodifiableSet(failedDeviceIds);
+        this.unsupportedDeviceCount = unsupportedDeviceCount;
+    }
+
+    public Duration getTotalDuration() {
+        return totalDuration;
+    }
+
+    public Duration getDeviceListDuration() {
+        return deviceListDuration;
+    }
+
+    // Keyed by device ID, includes devices which failed to hydrate
+    public Map<String, Duration> getHydrationDurations() {
+        return hydrationDurations;
+    }
+
+    public Set<String> getFailedDeviceIds() {
+        return failedDeviceIds;
+    }
+
+    public int getUnsupportedDeviceCount() {
+        return unsupportedDeviceCount;
+    }
+
+    @Override
+    public String toString() {
+        return "DiscoveryStatistics [total=" + totalDuration.toMillis() + "ms, deviceList="
+                + deviceListDuration.toMillis() + "ms, hydrated=" + hydrationDurations.size() + ", failed="
+                + failedDeviceIds.size() + ", unsupported=" + unsupportedDeviceCount + "]";
+    }
+}
@@ -3,12 +3,13 @@ package dev.pott.sucks.api;
 import java.util.*;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.HttpClient;
 
 import dev.pott.sucks.api.internal.EcovacsApiImpl;
 
 @NonNullByDefault
-public interface EcovacsApi {
+public interface EcovacsApi extends AutoCloseable {
     public static EcovacsApi create(HttpClient httpClient, EcovacsApiConfiguration configuration) {
         return new EcovacsApiImpl(httpClient, configuration);
     }
@@ -16,4 +17,19 @@ public interface EcovacsApi {
     public void loginAndGetAccessToken() throws EcovacsApiException;
 
     public List<EcovacsDevice> getDevices() throws EcovacsApiException;
+
+    public @Nullable DiscoveryStatistics getLastDiscoveryStatistics();
+
+    // One entry per HTTP destination the API has talked to so far
+    public List<HttpPoolStatistics> getHttpPoolStatistics();
+
+    // Keyed by circuit name, see CircuitBreakerListener
+    public Map<String, CircuitBreakerState> getCircuitBreakerStates();
+
+    public EventPipelineStatistics getEventPipelineStatistics();
+
+    // Disconnects all devices and stops the threads dispatching their events. The HTTP client is owned by the caller
+    // and stays running.
+    @Override
+    public void close();
 }
@@ -1,5 +1,16 @@
 package dev.pott.sucks.api;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import org.eclipse.jdt.annotation.Nullable;
+
 public final class EcovacsApiConfiguration {
     private final String deviceId;
     private final String username;
@@ -12,6 +23,40 @@ public final class EcovacsApiConfiguration {
     private final String authClientKey;
     private final String authClientSecret;
 
+    private Executor commandExecutor = ForkJoinPool.commonPool();
+    private int discoveryConcurrency = 8;
+    private Duration deviceHydrationTimeout = Duration.ofSeconds(30);
+    private boolean eagerDeviceHydration;
+    private @Nullable Path deviceCatalogFile;
+    private Duration productMapCacheTtl = Duration.ofHours(24);
+    private @Nullable SessionStore sessionStore = new InMemorySessionStore();
+    private @Nullable Duration sessionRefreshInterval;
+    private @Nullable String mainApiBaseUrl;
+    private @Nullable String authApiBaseUrl;
+    private @Nullable String portalBaseUrl;
+    private @Nullable String mqttHost;
+    private int mqttPort = 8883;
+    private @Nullable Path mapImageCacheDirectory;
+    private long mapImageCacheMaxBytes = 64L * 1024 * 1024;
+    private int mapImageDownloadConcurrency = 4;
+    private int maxCachedCleanLogs = 200;
+    private @Nullable CleanHistoryStore cleanHistoryStore;
+    private CommandResiliencePolicy commandResiliencePolicy = new CommandResiliencePolicy();
+    private int circuitBreakerFailureThreshold = 5;
+    private Duration circuitBreakerOpenDuration = Duration.ofSeconds(30);
+    private int circuitBreakerHalfOpenProbes = 1;
+    private @Nullable CircuitBreakerListener circuitBreakerListener;
+    private @Nullable RateLimit accountRateLimit;
+    private final Map<String, RateLimit> endpointRateLimits = new HashMap<>();
+    private RateLimitMode rateLimitMode = RateLimitMode.QUEUE;
+    private Duration rateLimitMaxWait = Duration.ofSeconds(30);
+    private @Nullable RateLimitListener rateLimitListener;
+    private final Map<DeviceProperty, Duration> stateCacheMaxAges = new EnumMap<>(DeviceProperty.class);
+    private int eventBufferSize = 1024;
+    private int eventDispatchThreads = 2;
+    private EventOverflowMode eventOverflowMode = EventOverflowMode.BLOCK;
+    private final Map<DeviceEventType, Duration> eventCoalescingIntervals = new EnumMap<>(DeviceEventType.class);
+
     public EcovacsApiConfiguration(String deviceId, String username, String password, String continent, String country,
             String language, String clientKey, String clientSecret, String authClientKey, String authClientSecret) {
         this.deviceId = deviceId;
@@ -24,6 +69,11 @@ public final class EcovacsApiConfiguration {
         this.clientSecret = clientSecret;
         this.authClientKey = authClientKey;
         this.authClientSecret = authClientSecret;
+        for (DeviceProperty property : DeviceProperty.values()) {
+            stateCacheMaxAges.put(property, Duration.ofSeconds(30));
+        }
+        // Stats are reported every few seconds while cleaning, only the newest values are of interest
+        eventCoalescingIntervals.put(DeviceEventType.CLEANING_STATS, Duration.ZERO);
     }
 
     public String getDeviceId() {
@@ -113,4 +163,347 @@ public final class EcovacsApiConfiguration {
     public String getAuthClientSecret() {
         return authClientSecret;
     }
+
+    public Executor getCommandExecutor() {
+        return commandExecutor;
+    }
+
+    // Converts responses of asynchronously sent commands; HTTP I/O itself runs on the HTTP client's threads
+    public EcovacsApiConfiguration setCommandExecutor(Executor commandExecutor) {
+        this.commandExecutor = commandExecutor;
+        return this;
+    }
+
+    public int getDiscoveryConcurrency() {
+        return discoveryConcurrency;
+    }
+
+    // Maximum number of devices hydrated in parallel during device discovery
+    public EcovacsApiConfiguration setDiscoveryConcurrency(int discoveryConcurrency) {
+        if (discoveryConcurrency < 1) {
+            throw new IllegalArgumentException("Discovery concurrency must be at least 1");
+        }
+        this.discoveryConcurrency = discoveryConcurrency;
+        return this;
+    }
+
+    public Duration getDeviceHydrationTimeout() {
+        return deviceHydrationTimeout;
+    }
+
+    public EcovacsApiConfiguration setDeviceHydrationTimeout(Duration deviceHydrationTimeout) {
+        this.deviceHydrationTimeout = deviceHydrationTimeout;
+        return this;
+    }
+
+    public boolean isEagerDeviceHydration() {
+        return eagerDeviceHydration;
+    }
+
+    // If set, device properties like the firmware version are fetched during discovery instead of on first use
+    public EcovacsApiConfiguration setEagerDeviceHydration(boolean eagerDeviceHydration) {
+        this.eagerDeviceHydration = eagerDeviceHydration;
+        return this;
+    }
+
+    public @Nullable Path getDeviceCatalogFile() {
+        return deviceCatalogFile;
+    }
+
+    // Optional device list in the format of the bundled one, entries override bundled entries of the same device class.
+    // The file is reloaded when modified, so new models can be added without restart.
+    public EcovacsApiConfiguration setDeviceCatalogFile(@Nullable Path deviceCatalogFile) {
+        this.deviceCatalogFile = deviceCatalogFile;
+        return this;
+    }
+
+    public Duration getProductMapCacheTtl() {
+        return productMapCacheTtl;
+    }
+
+    public EcovacsApiConfiguration setProductMapCacheTtl(Duration productMapCacheTtl) {
+        this.productMapCacheTtl = productMapCacheTtl;
+        return this;
+    }
+
+    public @Nullable SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    // Defaults to an in-memory store, so sessions don't survive restarts; pass a FileSessionStore to persist them, or
+    // null to disable session reuse
+    public EcovacsApiConfiguration setSessionStore(@Nullable SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+        return this;
+    }
+
+    public @Nullable Duration getSessionRefreshInterval() {
+        return sessionRefreshInterval;
+    }
+
+    // If set, sessions older than the interval are renewed in the background before the portal rejects them
+    public EcovacsApiConfiguration setSessionRefreshInterval(@Nullable Duration sessionRefreshInterval) {
+        this.sessionRefreshInterval = sessionRefreshInterval;
+        return this;
+    }
+
+    public @Nullable String getMainApiBaseUrl() {
+        return mainApiBaseUrl;
+    }
+
+    // Base URLs default to the Ecovacs servers of the configured country/continent, set them to use e.g. a proxy
+    // or a regional mirror. Paths are appended as usual.
+    public EcovacsApiConfiguration setMainApiBaseUrl(@Nullable String mainApiBaseUrl) {
+        this.mainApiBaseUrl = mainApiBaseUrl;
+        return this;
+    }
+
+    public @Nullable String getAuthApiBaseUrl() {
+        return authApiBaseUrl;
+    }
+
+    public EcovacsApiConfiguration setAuthApiBaseUrl(@Nullable String authApiBaseUrl) {
+        this.authApiBaseUrl = authApiBaseUrl;
+        return this;
+    }
+
+    public @Nullable String getPortalBaseUrl() {
+        return portalBaseUrl;
+    }
+
+    public EcovacsApiConfiguration setPortalBaseUrl(@Nullable String portalBaseUrl) {
+        this.portalBaseUrl = portalBaseUrl;
+        return this;
+    }
+
+    public @Nullable String getMqttHost() {
+        return mqttHost;
+    }
+
+    public int getMqttPort() {
+        return mqttPort;
+    }
+
+    public EcovacsApiConfiguration setMqttBroker(@Nullable String mqttHost, int mqttPort) {
+        this.mqttHost = mqttHost;
+        this.mqttPort = mqttPort;
+        return this;
+    }
+
+    public @Nullable Path getMapImageCacheDirectory() {
+        return mapImageCacheDirectory;
+    }
+
+    // Clean log map images are only cached on disk if a directory is set
+    public EcovacsApiConfiguration setMapImageCacheDirectory(@Nullable Path mapImageCacheDirectory) {
+        this.mapImageCacheDirectory = mapImageCacheDirectory;
+        return this;
+    }
+
+    public long getMapImageCacheMaxBytes() {
+        return mapImageCacheMaxBytes;
+    }
+
+    public EcovacsApiConfiguration setMapImageCacheMaxBytes(long mapImageCacheMaxBytes) {
+        this.mapImageCacheMaxBytes = mapImageCacheMaxBytes;
+        return this;
+    }
+
+    public int getMapImageDownloadConcurrency() {
+        return mapImageDownloadConcurrency;
+    }
+
+    public EcovacsApiConfiguration setMapImageDownloadConcurrency(int mapImageDownloadConcurrency) {
+        if (mapImageDownloadConcurrency < 1) {
+            throw new IllegalArgumentException("Map image download concurrency must be at least 1");
+        }
+        this.mapImageDownloadConcurrency = mapImageDownloadConcurrency;
+        return this;
+    }
+
+    public int getMaxCachedCleanLogs() {
+        return maxCachedCleanLogs;
+    }
+
+    // Number of clean log records kept in memory per device, so that only newer records need to be fetched
+    public EcovacsApiConfiguration setMaxCachedCleanLogs(int maxCachedCleanLogs) {
+        this.maxCachedCleanLogs = maxCachedCleanLogs;
+        return this;
+    }
+
+    public @Nullable CleanHistoryStore getCleanHistoryStore() {
+        return cleanHistoryStore;
+    }
+
+    // If set, all fetched clean log records are also appended to the store for later offline queries
+    public EcovacsApiConfiguration setCleanHistoryStore(@Nullable CleanHistoryStore cleanHistoryStore) {
+        this.cleanHistoryStore = cleanHistoryStore;
+        return this;
+    }
+
+    public CommandResiliencePolicy getCommandResiliencePolicy() {
+        return commandResiliencePolicy;
+    }
+
+    public EcovacsApiConfiguration setCommandResiliencePolicy(CommandResiliencePolicy commandResiliencePolicy) {
+        this.commandResiliencePolicy = commandResiliencePolicy;
+        return this;
+    }
+
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    // Consecutive failures after which requests to an endpoint or device fail immediately
+    public EcovacsApiConfiguration setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+        return this;
+    }
+
+    public Duration getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    public EcovacsApiConfiguration setCircuitBreakerOpenDuration(Duration circuitBreakerOpenDuration) {
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+        return this;
+    }
+
+    public int getCircuitBreakerHalfOpenProbes() {
+        return circuitBreakerHalfOpenProbes;
+    }
+
+    // Number of concurrent probe requests let through once the open duration has passed
+    public EcovacsApiConfiguration setCircuitBreakerHalfOpenProbes(int circuitBreakerHalfOpenProbes) {
+        this.circuitBreakerHalfOpenProbes = circuitBreakerHalfOpenProbes;
+        return this;
+    }
+
+    public @Nullable CircuitBreakerListener getCircuitBreakerListener() {
+        return circuitBreakerListener;
+    }
+
+    public EcovacsApiConfiguration setCircuitBreakerListener(@Nullable CircuitBreakerListener circuitBreakerListener) {
+        this.circuitBreakerListener = circuitBreakerListener;
+        return this;
+    }
+
+    public @Nullable RateLimit getAccountRateLimit() {
+        return accountRateLimit;
+    }
+
+    // Limits all portal and login requests of this API instance; unlimited by default
+    public EcovacsApiConfiguration setAccountRateLimit(@Nullable RateLimit accountRateLimit) {
+        this.accountRateLimit = accountRateLimit;
+        return this;
+    }
+
+    public Map<String, RateLimit> getEndpointRateLimits() {
+        return Collections.unmodifiableMap(endpointRateLimits);
+    }
+
+    // Limits requests to a single endpoint, named as in CircuitBreakerListener (e.g. devmanager), in addition to the
+    // account limit. Passing null removes the limit.
+    public EcovacsApiConfiguration setEndpointRateLimit(String endpointName, @Nullable RateLimit rateLimit) {
+        if (rateLimit != null) {
+            endpointRateLimits.put(endpointName, rateLimit);
+        } else {
+            endpointRateLimits.remove(endpointName);
+        }
+        return this;
+    }
+
+    public RateLimitMode getRateLimitMode() {
+        return rateLimitMode;
+    }
+
+    public EcovacsApiConfiguration setRateLimitMode(RateLimitMode rateLimitMode) {
+        this.rateLimitMode = rateLimitMode;
+        return this;
+    }
+
+    public Duration getRateLimitMaxWait() {
+        return rateLimitMaxWait;
+    }
+
+    // Requests which would have to wait longer than this for the rate limit fail immediately instead
+    public EcovacsApiConfiguration setRateLimitMaxWait(Duration rateLimitMaxWait) {
+        this.rateLimitMaxWait = rateLimitMaxWait;
+        return this;
+    }
+
+    public @Nullable RateLimitListener getRateLimitListener() {
+        return rateLimitListener;
+    }
+
+    public EcovacsApiConfiguration setRateLimitListener(@Nullable RateLimitListener rateLimitListener) {
+        this.rateLimitListener = rateLimitListener;
+        return this;
+    }
+
+    public Map<DeviceProperty, Duration> getStateCacheMaxAges() {
+        return Collections.unmodifiableMap(stateCacheMaxAges);
+    }
+
+    // While the MQTT connection of a JSON API device is up, getter commands for the property are answered from state
+    // not older than this, instead of querying the portal. Commands changing the device clear that state. Passing null
+    // always queries the portal.
+    public EcovacsApiConfiguration setStateCacheMaxAge(DeviceProperty property, @Nullable Duration maxAge) {
+        if (maxAge != null) {
+            stateCacheMaxAges.put(property, maxAge);
+        } else {
+            stateCacheMaxAges.remove(property);
+        }
+        return this;
+    }
+
+    public int getEventBufferSize() {
+        return eventBufferSize;
+    }
+
+    // Number of pending MQTT events each dispatch thread can hold; must be a power of two
+    public EcovacsApiConfiguration setEventBufferSize(int eventBufferSize) {
+        if (eventBufferSize < 1 || Integer.bitCount(eventBufferSize) != 1) {
+            throw new IllegalArgumentException("Event buffer size must be a power of two");
+        }
+        this.eventBufferSize = eventBufferSize;
+        return this;
+    }
+
+    public int getEventDispatchThreads() {
+        return eventDispatchThreads;
+    }
+
+    // Threads calling the state change listeners; the events of one device are always handled by the same thread
+    public EcovacsApiConfiguration setEventDispatchThreads(int eventDispatchThreads) {
+        if (eventDispatchThreads < 1) {
+            throw new IllegalArgumentException("At least one event dispatch thread is needed");
+        }
+        this.eventDispatchThreads = eventDispatchThreads;
+        return this;
+    }
+
+    public EventOverflowMode getEventOverflowMode() {
+        return eventOverflowMode;
+    }
+
+    public EcovacsApiConfiguration setEventOverflowMode(EventOverflowMode eventOverflowMode) {
+        this.eventOverflowMode = eventOverflowMode;
+        return this;
+    }
+
+    public Map<DeviceEventType, Duration> getEventCoalescingIntervals() {
+        return Collections.unmodifiableMap(eventCoalescingIntervals);
+    }
+
+    // If set, notifications of the event type which are not delivered yet are replaced by newer ones, and at most one
+    // notification is delivered per interval. Passing null delivers every notification.
+    public EcovacsApiConfiguration setEventCoalescing(DeviceEventType eventType, @Nullable Duration minEmitInterval) {
+        if (minEmitInterval != null) {
+            eventCoalescingIntervals.put(eventType, minEmitInterval);
+        } else {
+            eventCoalescingIntervals.remove(eventType);
+        }
+        return this;
+    }
 }
@@ -1,19 +1,61 @@
 package dev.pott.sucks.api;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.http.HttpStatus;
 
 public class EcovacsApiException extends IOException {
+    private final boolean isAuthFailure;
+    private final boolean isTransient;
+
     public EcovacsApiException(String reason) {
+        this(reason, false);
+    }
+
+    public EcovacsApiException(String reason, boolean isAuthFailure) {
+        this(reason, isAuthFailure, false);
+    }
+
+    public EcovacsApiException(String reason, boolean isAuthFailure, boolean isTransient) {
         super(reason);
+        this.isAuthFailure = isAuthFailure;
+        this.isTransient = isTransient;
     }
 
     public EcovacsApiException(Response response) {
         super("HTTP status " + response.getStatus());
+        int status = response.getStatus();
+        this.isAuthFailure = status == HttpStatus.UNAUTHORIZED_401;
+        this.isTransient = HttpStatus.isServerError(status) || status == HttpStatus.TOO_MANY_REQUESTS_429;
     }
 
     public EcovacsApiException(Throwable cause) {
         super(cause);
+        this.isAuthFailure = false;
+        this.isTransient = isTransientFailure(cause);
+    }
+
+    // Failures to connect, connections closed or reset while reading, and timeouts, as opposed to e.g. malformed
+    // responses, which are IOExceptions as well
+    private static boolean isTransientFailure(Throwable cause) {
+        return cause instanceof SocketException || cause instanceof UnknownHostException
+                || cause instanceof EOFException || cause instanceof ClosedChannelException
+                || cause instanceof InterruptedIOException || cause instanceof TimeoutException;
+    }
+
+    public boolean isAuthFailure() {
+        return isAuthFailure;
+    }
+
+    // Whether sending the same request again may succeed
+    public boolean isTransient() {
+        return isTransient;
     }
 }
@@ -1,6 +1,7 @@
 package dev.pott.sucks.api;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 
@@ -39,7 +40,7 @@ public interface EcovacsDevice {
 
     public String getModelName();
 
-    public String getFirmwareVersion();
+    public String getFirmwareVersion() throws EcovacsApiException;
 
     public boolean hasCapability(DeviceCapability cap);
 
@@ -51,5 +52,9 @@ public interface EcovacsDevice {
 
     public <T> T sendCommand(MultiCommand<T> command) throws EcovacsApiException;
 
+    public <T> CompletableFuture<T> sendCommandAsync(IotDeviceCommand<T> command);
+
+    public <T> CompletableFuture<T> sendCommandAsync(MultiCommand<T> command);
+
     public List<CleanLogRecord> getCleanLogs(int maxCount) throws EcovacsApiException;
 }
@@ -0,0 +1,121 @@
+package dev.pott.sucks.api;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpClientTransport;
+import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+/**
+ * Creates a Jetty {@link HttpClient} tuned for the Ecovacs traffic pattern: few destinations (the portal and the
+ * login hosts), many small concurrent requests to the same destination and long idle periods between polls.
+ * The returned client is not started yet.
+ * <p>
+ * HTTP/2 requires the Jetty HTTP/2 client transport ({@code org.eclipse.jetty.http2:http2-http-client-transport})
+ * and an ALPN implementation matching the JVM on the class path; without them {@link #build()} fails.
+ */
+@NonNullByDefault
+public class EcovacsHttpClientBuilder {
+    private static final String HTTP2_CLIENT_CLASS = "org.eclipse.jetty.http2.client.HTTP2Client";
+    private static final String HTTP2_TRANSPORT_CLASS = //
+            "org.eclipse.jetty.http2.client.http.HttpClientTransportOverHTTP2";
+
+    private SslContextFactory.@Nullable Client sslContextFactory;
+    private int maxConnectionsPerDestination = 8;
+    private int maxRequestsQueuedPerDestination = 1024;
+    private long connectTimeoutMillis = 10000;
+    private long idleTimeoutMillis = 60000;
+    private int maxThreads = 32;
+    private int selectors = 1;
+    private boolean http2Enabled;
+
+    public EcovacsHttpClientBuilder setSslContextFactory(SslContextFactory.@Nullable Client sslContextFactory) {
+        this.sslContextFactory = sslContextFactory;
+        return this;
+    }
+
+    // For HTTP/2, this is the number of connections each multiplexing many concurrent requests
+    public EcovacsHttpClientBuilder setMaxConnectionsPerDestination(int maxConnectionsPerDestination) {
+        this.maxConnectionsPerDestination = maxConnectionsPerDestination;
+        return this;
+    }
+
+    // Requests exceeding this limit while all connections are busy fail immediately instead of waiting
+    public EcovacsHttpClientBuilder setMaxRequestsQueuedPerDestination(int maxRequestsQueuedPerDestination) {
+        this.maxRequestsQueuedPerDestination = maxRequestsQueuedPerDestination;
+        return this;
+    }
+
+    public EcovacsHttpClientBuilder setConnectTimeoutMillis(long connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        return this;
+    }
+
+    // Pooled connections idle for longer than this are closed; keep this above the polling interval so connections
+    // are reused between polls
+    public EcovacsHttpClientBuilder setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    public EcovacsHttpClientBuilder setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    public EcovacsHttpClientBuilder setSelectors(int selectors) {
+        this.selectors = selectors;
+        return this;
+    }
+
+    public EcovacsHttpClientBuilder setHttp2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+        return this;
+    }
+
+    public HttpClient build() {
+        SslContextFactory.@Nullable Client sslContextFactory = this.sslContextFactory;
+        if (sslContextFactory == null) {
+            sslContextFactory = new SslContextFactory.Client();
+        }
+        HttpClient httpClient = new HttpClient(createTransport(), sslContextFactory);
+
+        QueuedThreadPool executor = new QueuedThreadPool(maxThreads, Math.min(maxThreads, 4));
+        executor.setName("ecovacs-http");
+        executor.setDaemon(true);
+        httpClient.setExecutor(executor);
+
+        httpClient.setMaxConnectionsPerDestination(maxConnectionsPerDestination);
+        httpClient.setMaxRequestsQueuedPerDestination(maxRequestsQueuedPerDestination);
+        httpClient.setConnectTimeout(connectTimeoutMillis);
+        httpClient.setIdleTimeout(idleTimeoutMillis);
+        httpClient.setTCPNoDelay(true);
+        return httpClient;
+    }
+
+    private HttpClientTransport createTransport() {
+        if (!http2Enabled) {
+            return new HttpClientTransportOverHTTP(selectors);
+        }
+        // Loaded reflectively so that the HTTP/2 transport stays an optional dependency
+        try {
+            Class<?> clientClass = Class.forName(HTTP2_CLIENT_CLASS);
+            Object http2Client = clientClass.getConstructor().newInstance();
+            clientClass.getMethod("setSelectors", int.class).invoke(http2Client, selectors);
+            Class<?> transportClass = Class.forName(HTTP2_TRANSPORT_CLASS);
+            Object transport = transportClass.getConstructor(clientClass).newInstance(http2Client);
+            transportClass.getMethod("setUseALPN", boolean.class).invoke(transport, true);
+            return (HttpClientTransport) transport;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("HTTP/2 was requested, but the Jetty HTTP/2 client is not available", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Could not create HTTP/2 transport", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create HTTP/2 transport", e);
+        }
+    }
+}
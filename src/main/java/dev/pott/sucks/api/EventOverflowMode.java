@@ -0,0 +1,8 @@
+package dev.pott.sucks.api;
+
+public enum EventOverflowMode {
+    // The MQTT client stops reading further messages until the listener of the device catches up
+    BLOCK,
+    // Device events which don't fit into the buffer are discarded; connection failures are always delivered
+    DROP
+}
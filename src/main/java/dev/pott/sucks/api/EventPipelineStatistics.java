@@ -0,0 +1,62 @@
+package dev.pott.sucks.api;
+
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Load of the buffer between the MQTT connection and the {@link EcovacsDevice.StateChangeListener} callbacks. Counts
+ * and wait times are totals since the API instance was created.
+ */
+@NonNullByDefault
+public final class EventPipelineStatistics {
+    private final int capacity;
+    private final int queuedEventCount;
+    private final long dispatchedEventCount;
+    private final long droppedEventCount;
+    private final Duration averageWaitTime;
+    private final Duration maxWaitTime;
+
+    public EventPipelineStatistics(int capacity, int queuedEventCount, long dispatchedEventCount,
+            long droppedEventCount, Duration averageWaitTime, Duration maxWaitTime) {
+        this.capacity = capacity;
+        this.queuedEventCount = queuedEventCount;
+        this.dispatchedEventCount = dispatchedEventCount;
+        this.droppedEventCount = droppedEventCount;
+        this.averageWaitTime = averageWaitTime;
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    // Summed over all dispatch threads
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getQueuedEventCount() {
+        return queuedEventCount;
+    }
+
+    public long getDispatchedEventCount() {
+        return dispatchedEventCount;
+    }
+
+    public long getDroppedEventCount() {
+        return droppedEventCount;
+    }
+
+    // Time between an event being received and its dispatch starting
+    public Duration getAverageWaitTime() {
+        return averageWaitTime;
+    }
+
+    public Duration getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    @Override
+    public String toString() {
+        return "EventPipelineStatistics [queued=" + queuedEventCount + "/" + capacity + ", dispatched="
+                + dispatchedEventCount + ", dropped=" + droppedEventCount + ", averageWait="
+                + averageWaitTime.toMillis() + "ms, maxWait=" + maxWaitTime.toMillis() + "ms]";
+    }
+}
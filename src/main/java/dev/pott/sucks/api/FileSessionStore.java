@@ -0,0 +1,75 @@
+package dev.pott.sucks.api;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Stores each session in its own file below a directory. Files are replaced atomically, so a crash while storing a
+ * session never leaves a partially written session behind. On POSIX file systems, directories created by the store
+ * and the session files are only accessible by the current user.
+ */
+@NonNullByDefault
+public class FileSessionStore implements SessionStore {
+    private final Path directory;
+
+    public FileSessionStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public @Nullable String load(String key) throws IOException {
+        try {
+            return new String(Files.readAllBytes(fileForKey(key)), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void store(String key, String session) throws IOException {
+        // Sessions contain access tokens, so keep them private to the current user where possible
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (posix) {
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+        Path target = fileForKey(key);
+        Path tempFile = Files.createTempFile(directory, key, ".tmp");
+        try {
+            if (posix) {
+                Files.setPosixFilePermissions(tempFile, PosixFilePermissions.fromString("rw-------"));
+            }
+            Files.write(tempFile, session.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public void remove(String key) throws IOException {
+        Files.deleteIfExists(fileForKey(key));
+    }
+
+    private Path fileForKey(String key) {
+        if (!key.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid session key " + key);
+        }
+        return directory.resolve(key + ".json");
+    }
+}
@@ -0,0 +1,69 @@
+package dev.pott.sucks.api;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Connection pool utilization and request queueing of a single HTTP destination (scheme, host and port).
+ */
+@NonNullByDefault
+public final class HttpPoolStatistics {
+    private final String destination;
+    private final int connectionCount;
+    private final int activeConnectionCount;
+    private final int idleConnectionCount;
+    private final int pendingConnectionCount;
+    private final int maxConnectionCount;
+    private final int queuedRequestCount;
+
+    public HttpPoolStatistics(String destination, int connectionCount, int activeConnectionCount,
+            int idleConnectionCount, int pendingConnectionCount, int maxConnectionCount, int queuedRequestCount) {
+        this.destination = destination;
+        this.connectionCount = connectionCount;
+        this.activeConnectionCount = activeConnectionCount;
+        this.idleConnectionCount = idleConnectionCount;
+        this.pendingConnectionCount = pendingConnectionCount;
+        this.maxConnectionCount = maxConnectionCount;
+        this.queuedRequestCount = queuedRequestCount;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    public int getActiveConnectionCount() {
+        return activeConnectionCount;
+    }
+
+    public int getIdleConnectionCount() {
+        return idleConnectionCount;
+    }
+
+    // Connections currently being opened
+    public int getPendingConnectionCount() {
+        return pendingConnectionCount;
+    }
+
+    public int getMaxConnectionCount() {
+        return maxConnectionCount;
+    }
+
+    // Requests waiting for a connection to become available
+    public int getQueuedRequestCount() {
+        return queuedRequestCount;
+    }
+
+    public double getUtilization() {
+        return maxConnectionCount > 0 ? (double) activeConnectionCount / maxConnectionCount : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpPoolStatistics [" + destination + ", connections=" + connectionCount + ", active="
+                + activeConnectionCount + ", idle=" + idleConnectionCount + ", pending=" + pendingConnectionCount
+                + ", max=" + maxConnectionCount + ", queued=" + queuedRequestCount + "]";
+    }
+}
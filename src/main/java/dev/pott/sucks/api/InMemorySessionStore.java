@@ -0,0 +1,31 @@
+package dev.pott.sucks.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Keeps sessions in memory only. API instances of the same account sharing a store reuse each other's session, but
+ * sessions don't survive restarts; use a {@link FileSessionStore} for that.
+ */
+@NonNullByDefault
+public class InMemorySessionStore implements SessionStore {
+    private final Map<String, String> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public @Nullable String load(String key) {
+        return sessions.get(key);
+    }
+
+    @Override
+    public void store(String key, String session) {
+        sessions.put(key, session);
+    }
+
+    @Override
+    public void remove(String key) {
+        sessions.remove(key);
+    }
+}
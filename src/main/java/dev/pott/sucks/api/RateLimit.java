@@ -0,0 +1,34 @@
+package dev.pott.sucks.api;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * A token bucket limit: requests are let through at the given sustained rate, and up to the burst size at once after
+ * idle periods.
+ */
+@NonNullByDefault
+public final class RateLimit {
+    private final double permitsPerSecond;
+    private final int burst;
+
+    public RateLimit(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimit [" + permitsPerSecond + "/s, burst=" + burst + "]";
+    }
+}
@@ -0,0 +1,12 @@
+package dev.pott.sucks.api;
+
+import java.time.Duration;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+@NonNullByDefault
+public interface RateLimitListener {
+    // Called for every request which had to wait for the rate limit, with the endpoint name as in
+    // CircuitBreakerListener
+    void onRequestDelayed(String endpointName, Duration waited);
+}
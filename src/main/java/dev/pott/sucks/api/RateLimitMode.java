@@ -0,0 +1,10 @@
+package dev.pott.sucks.api;
+
+public enum RateLimitMode {
+    // The thread calling an asynchronous device command sleeps until a request over the limit may be sent, instead of
+    // returning. Blocking API calls wait for their responses in either mode. Requests the library sends on its own
+    // threads, like retries or later steps of asynchronous calls, are queued.
+    BLOCK,
+    // Requests over the limit are scheduled for later sending, the submitting thread returns immediately
+    QUEUE
+}
@@ -0,0 +1,19 @@
+package dev.pott.sucks.api;
+
+import java.io.IOException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Persists login sessions across restarts, so that a still valid session can be reused instead of logging in again.
+ * Sessions are opaque strings; the key identifies the account and client the session belongs to.
+ */
+@NonNullByDefault
+public interface SessionStore {
+    public @Nullable String load(String key) throws IOException;
+
+    public void store(String key, String session) throws IOException;
+
+    public void remove(String key) throws IOException;
+}
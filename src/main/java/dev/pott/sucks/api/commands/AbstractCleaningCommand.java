@@ -3,9 +3,6 @@ package dev.pott.sucks.api.commands;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
@@ -23,14 +20,14 @@ public abstract class AbstractCleaningCommand extends IotDeviceCommand<Void> {
     }
 
     @Override
-    protected void applyXmlPayload(Document doc, Element ctl) {
-        Element clean = doc.createElement("clean");
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
+        ctl.startElement("clean");
         if (mode != null) {
-            clean.setAttribute("type", mode);
+            ctl.attribute("type", mode);
         }
-        clean.setAttribute("speed", "standard");
-        clean.setAttribute("act", xmlAction);
-        ctl.appendChild(clean);
+        ctl.attribute("speed", "standard");
+        ctl.attribute("act", xmlAction);
+        ctl.endElement();
     }
 
     @Override
@@ -1,17 +1,30 @@
 package dev.pott.sucks.api.commands;
 
+import java.lang.reflect.Type;
+
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.deviceapi.CachedMapInfoReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 
 public class GetActiveMapIdCommand extends IotDeviceCommand<String> {
     public GetActiveMapIdCommand() {
         super("GetMapM", "getCachedMapInfo");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return CachedMapInfoReport.class;
+    }
+
     @Override
     public String convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
@@ -19,8 +32,8 @@ public class GetActiveMapIdCommand extends IotDeviceCommand<String> {
                     CachedMapInfoReport.class);
             return resp.mapInfos.stream().filter(i -> i.used != 0).map(i -> i.mapId).findFirst().orElse("");
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            return getFirstXPathMatch(payload, "//@i").getNodeValue();
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            return payload.getAttribute("i");
         }
     }
 }
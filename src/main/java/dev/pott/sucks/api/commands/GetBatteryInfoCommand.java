@@ -1,6 +1,6 @@
 package dev.pott.sucks.api.commands;
 
-import org.w3c.dom.Node;
+import java.lang.reflect.Type;
 
 import com.google.gson.Gson;
 
@@ -8,12 +8,23 @@ import dev.pott.sucks.api.internal.dto.response.deviceapi.BatteryReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 
 public class GetBatteryInfoCommand extends IotDeviceCommand<Integer> {
     public GetBatteryInfoCommand() {
         super("GetBatteryInfo", "getBattery");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return BatteryReport.class;
+    }
+
     @Override
     public Integer convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
@@ -21,9 +32,8 @@ public class GetBatteryInfoCommand extends IotDeviceCommand<Integer> {
                     BatteryReport.class);
             return resp.percent;
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            Node batteryAttr = getFirstXPathMatch(payload, "//battery/@power");
-            return Integer.valueOf(batteryAttr.getNodeValue());
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            return Integer.valueOf(payload.getAttribute("battery", "power"));
         }
     }
 }
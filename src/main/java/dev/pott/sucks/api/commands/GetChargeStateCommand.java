@@ -1,6 +1,6 @@
 package dev.pott.sucks.api.commands;
 
-import org.w3c.dom.Node;
+import java.lang.reflect.Type;
 
 import com.google.gson.Gson;
 
@@ -8,6 +8,7 @@ import dev.pott.sucks.api.internal.dto.response.deviceapi.ChargeReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 import dev.pott.sucks.cleaner.ChargeMode;
 
 public class GetChargeStateCommand extends IotDeviceCommand<ChargeMode> {
@@ -15,6 +16,16 @@ public class GetChargeStateCommand extends IotDeviceCommand<ChargeMode> {
         super("GetChargeState", "getChargeState");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return ChargeReport.class;
+    }
+
     @Override
     public ChargeMode convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
@@ -22,9 +33,8 @@ public class GetChargeStateCommand extends IotDeviceCommand<ChargeMode> {
                     ChargeReport.class);
             return resp.isCharging != 0 ? ChargeMode.CHARGING : ChargeMode.IDLE;
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            Node typeAttr = getFirstXPathMatch(payload, "//charge/@type");
-            return gson.fromJson(typeAttr.getNodeValue(), ChargeMode.class);
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            return gson.fromJson(payload.getAttribute("charge", "type"), ChargeMode.class);
         }
     }
 }
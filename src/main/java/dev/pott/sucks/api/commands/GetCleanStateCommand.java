@@ -1,11 +1,14 @@
 package dev.pott.sucks.api.commands;
 
+import java.lang.reflect.Type;
+
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.deviceapi.CleanReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 import dev.pott.sucks.cleaner.CleanMode;
 
 public class GetCleanStateCommand extends IotDeviceCommand<CleanMode> {
@@ -13,14 +16,24 @@ public class GetCleanStateCommand extends IotDeviceCommand<CleanMode> {
         super("GetCleanState", "getCleanInfo");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return CleanReport.class;
+    }
+
     @Override
     public CleanMode convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
             CleanReport resp = ((PortalIotCommandJsonResponse) response).getResponsePayloadAs(gson, CleanReport.class);
             return resp.determineCleanMode(gson);
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            String mode = getFirstXPathMatch(payload, "//clean/@type").getNodeValue();
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            String mode = payload.getAttribute("clean", "type");
             return gson.fromJson(mode, CleanMode.class);
         }
     }
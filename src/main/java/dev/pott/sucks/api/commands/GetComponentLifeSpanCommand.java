@@ -4,18 +4,13 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.reflect.TypeToken;
 
 import dev.pott.sucks.api.internal.dto.response.deviceapi.ComponentLifeSpanReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 import dev.pott.sucks.cleaner.Component;
 
 public class GetComponentLifeSpanCommand extends IotDeviceCommand<Integer> {
@@ -27,8 +22,13 @@ public class GetComponentLifeSpanCommand extends IotDeviceCommand<Integer> {
     }
 
     @Override
-    protected void applyXmlPayload(Document doc, Element ctl) {
-        ctl.setAttribute("type", type.xmlValue);
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
+        ctl.attribute("type", type.xmlValue);
     }
 
     @Override
@@ -38,19 +38,22 @@ public class GetComponentLifeSpanCommand extends IotDeviceCommand<Integer> {
         return args;
     }
 
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return ComponentLifeSpanReport[].class;
+    }
+
     @Override
     public Integer convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
-            JsonElement respPayloadRaw = ((PortalIotCommandJsonResponse) response).getResponsePayload(gson);
-            Type type = new TypeToken<List<ComponentLifeSpanReport>>() {
-            }.getType();
-            List<ComponentLifeSpanReport> resp = gson.fromJson(respPayloadRaw, type);
-            if (resp == null || resp.isEmpty()) {
-                throw new IllegalArgumentException("Invalid lifespan response " + respPayloadRaw);
+            ComponentLifeSpanReport[] resp = ((PortalIotCommandJsonResponse) response).getResponsePayloadAs(gson,
+                    ComponentLifeSpanReport[].class);
+            if (resp.length == 0) {
+                throw new IllegalArgumentException("Empty lifespan response");
             }
-            return (int) Math.round(100.0 * resp.get(0).left / resp.get(0).total);
+            return (int) Math.round(100.0 * resp[0].left / resp[0].total);
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
             int value = nodeValueToInt(payload, "value");
             int total = nodeValueToInt(payload, "total");
             int left = nodeValueToInt(payload, "left");
@@ -67,8 +70,8 @@ public class GetComponentLifeSpanCommand extends IotDeviceCommand<Integer> {
         }
     }
 
-    private int nodeValueToInt(String payload, String attrName) throws Exception {
-        Node attr = getFirstXPathMatch(payload, "//ctl/@" + attrName);
-        return attr != null ? Integer.valueOf(attr.getNodeValue()) : -1;
+    private int nodeValueToInt(XmlResponsePayload payload, String attrName) {
+        String value = payload.findAttribute("ctl", attrName);
+        return value != null ? Integer.valueOf(value) : -1;
     }
 }
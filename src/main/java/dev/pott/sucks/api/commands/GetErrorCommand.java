@@ -1,11 +1,14 @@
 package dev.pott.sucks.api.commands;
 
+import java.lang.reflect.Type;
+
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.deviceapi.ErrorReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 import dev.pott.sucks.cleaner.ErrorDescription;
 
 public class GetErrorCommand extends IotDeviceCommand<ErrorDescription> {
@@ -13,6 +16,16 @@ public class GetErrorCommand extends IotDeviceCommand<ErrorDescription> {
         super("GetError", "getError");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return ErrorReport.class;
+    }
+
     @Override
     public ErrorDescription convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
@@ -22,8 +35,8 @@ public class GetErrorCommand extends IotDeviceCommand<ErrorDescription> {
             }
             return new ErrorDescription(resp.errorCodes.get(0));
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            int errorCode = Integer.valueOf(getFirstXPathMatch(payload, "//@errs").getNodeValue());
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            int errorCode = Integer.valueOf(payload.getAttribute("errs"));
             return new ErrorDescription(errorCode);
         }
     }
@@ -1,31 +1,34 @@
 package dev.pott.sucks.api.commands;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 
 public class GetFirmwareVersionCommand extends IotDeviceCommand<String> {
     public GetFirmwareVersionCommand() {
         super("GetVersion", "GetVersion");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     public boolean forceXmlFormat() {
         return true;
     }
 
     @Override
-    protected void applyXmlPayload(Document doc, Element ctl) {
-        ctl.setAttribute("name", "FW");
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
+        ctl.attribute("name", "FW");
     }
 
     @Override
     public String convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
-        String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-        return getFirstXPathMatch(payload, "//ver[@name='FW']").getTextContent();
+        XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+        return payload.getElementText("ver", "name", "FW");
     }
 }
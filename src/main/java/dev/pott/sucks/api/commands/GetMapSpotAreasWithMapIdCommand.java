@@ -1,21 +1,19 @@
 package dev.pott.sucks.api.commands;
 
-import java.util.ArrayList;
+import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.deviceapi.MapSetReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 
 public class GetMapSpotAreasWithMapIdCommand extends IotDeviceCommand<List<String>> {
     private final String mapId;
@@ -29,8 +27,13 @@ public class GetMapSpotAreasWithMapIdCommand extends IotDeviceCommand<List<Strin
     }
 
     @Override
-    protected void applyXmlPayload(Document doc, Element ctl) {
-        ctl.setAttribute("tp", "sa");
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
+        ctl.attribute("tp", "sa");
     }
 
     @Override
@@ -41,6 +44,11 @@ public class GetMapSpotAreasWithMapIdCommand extends IotDeviceCommand<List<Strin
         return args;
     }
 
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return MapSetReport.class;
+    }
+
     @Override
     public List<String> convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
@@ -48,11 +56,10 @@ public class GetMapSpotAreasWithMapIdCommand extends IotDeviceCommand<List<Strin
                     MapSetReport.class);
             return resp.subsets.stream().map(i -> i.id).collect(Collectors.toList());
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            NodeList mapIds = getXPathMatches(payload, "//m/@mid");
-            List<String> result = new ArrayList<>();
-            for (int i = 0; i < mapIds.getLength(); i++) {
-                result.add(mapIds.item(i).getNodeValue());
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            List<String> result = payload.getAttributes("m", "mid");
+            if (result.isEmpty()) {
+                throw new NoSuchElementException("No map IDs in response");
             }
             return result;
         }
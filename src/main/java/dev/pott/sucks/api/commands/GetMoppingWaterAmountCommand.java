@@ -1,11 +1,14 @@
 package dev.pott.sucks.api.commands;
 
+import java.lang.reflect.Type;
+
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.deviceapi.WaterInfoReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 import dev.pott.sucks.cleaner.MoppingWaterAmount;
 
 public class GetMoppingWaterAmountCommand extends IotDeviceCommand<MoppingWaterAmount> {
@@ -13,14 +16,24 @@ public class GetMoppingWaterAmountCommand extends IotDeviceCommand<MoppingWaterA
         super("GetWaterLevel", "getWaterInfo");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return WaterInfoReport.class;
+    }
+
     public MoppingWaterAmount convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
             WaterInfoReport resp = ((PortalIotCommandJsonResponse) response).getResponsePayloadAs(gson,
                     WaterInfoReport.class);
             return MoppingWaterAmount.fromApiValue(resp.waterAmount);
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            return MoppingWaterAmount.fromApiValue(Integer.valueOf(getFirstXPathMatch(payload, "//@v").getNodeValue()));
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            return MoppingWaterAmount.fromApiValue(Integer.valueOf(payload.getAttribute("v")));
         }
     }
 }
@@ -1,6 +1,6 @@
 package dev.pott.sucks.api.commands;
 
-import org.w3c.dom.Node;
+import java.lang.reflect.Type;
 
 import com.google.gson.Gson;
 
@@ -8,6 +8,7 @@ import dev.pott.sucks.api.internal.dto.response.deviceapi.NetworkInfoReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 import dev.pott.sucks.cleaner.NetworkInfo;
 
 public class GetNetworkInfoCommand extends IotDeviceCommand<NetworkInfo> {
@@ -15,6 +16,16 @@ public class GetNetworkInfoCommand extends IotDeviceCommand<NetworkInfo> {
         super("GetNetInfo", "getNetInfo");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return NetworkInfoReport.class;
+    }
+
     @Override
     public NetworkInfo convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
@@ -22,10 +33,10 @@ public class GetNetworkInfoCommand extends IotDeviceCommand<NetworkInfo> {
                     NetworkInfoReport.class);
             return new NetworkInfo(resp.ip, resp.mac, resp.ssid, Integer.valueOf(resp.rssi));
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            Node ipAttr = getFirstXPathMatch(payload, "//@wi"); // TODO: verify this
-            Node ssidAttr = getFirstXPathMatch(payload, "//@s");
-            return new NetworkInfo(ipAttr.getNodeValue(), "", ssidAttr.getNodeValue(), 0);
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            String ip = payload.getAttribute("wi"); // TODO: verify this
+            String ssid = payload.getAttribute("s");
+            return new NetworkInfo(ip, "", ssid, 0);
         }
     }
 }
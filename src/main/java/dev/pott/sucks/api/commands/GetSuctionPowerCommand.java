@@ -1,6 +1,6 @@
 package dev.pott.sucks.api.commands;
 
-import org.w3c.dom.Node;
+import java.lang.reflect.Type;
 
 import com.google.gson.Gson;
 
@@ -8,6 +8,7 @@ import dev.pott.sucks.api.internal.dto.response.deviceapi.SpeedReport;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 import dev.pott.sucks.cleaner.SuctionPower;
 
 public class GetSuctionPowerCommand extends IotDeviceCommand<SuctionPower> {
@@ -15,15 +16,25 @@ public class GetSuctionPowerCommand extends IotDeviceCommand<SuctionPower> {
         super("GetCleanSpeed", "getSpeed");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return SpeedReport.class;
+    }
+
     @Override
     public SuctionPower convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
             SpeedReport resp = ((PortalIotCommandJsonResponse) response).getResponsePayloadAs(gson, SpeedReport.class);
             return SuctionPower.fromJsonValue(resp.speedLevel);
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            Node speedAttr = getFirstXPathMatch(payload, "//@speed"); // TODO: verify this
-            return gson.fromJson(speedAttr.getNodeValue(), SuctionPower.class);
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            String speed = payload.getAttribute("speed"); // TODO: verify this
+            return gson.fromJson(speed, SuctionPower.class);
         }
     }
 }
@@ -1,11 +1,14 @@
 package dev.pott.sucks.api.commands;
 
+import java.lang.reflect.Type;
+
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
 import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandXmlResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.XmlResponsePayload;
 
 public class GetTotalStatsCommand extends IotDeviceCommand<GetTotalStatsCommand.TotalStats> {
     public class TotalStats {
@@ -27,14 +30,24 @@ public class GetTotalStatsCommand extends IotDeviceCommand<GetTotalStatsCommand.
         super("GetCleanSum", "getTotalStats");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return TotalStats.class;
+    }
+
     public TotalStats convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
             return ((PortalIotCommandJsonResponse) response).getResponsePayloadAs(gson, TotalStats.class);
         } else {
-            String payload = ((PortalIotCommandXmlResponse) response).getResponsePayloadXml();
-            String area = getFirstXPathMatch(payload, "//@a").getNodeValue();
-            String time = getFirstXPathMatch(payload, "//@l").getNodeValue();
-            String count = getFirstXPathMatch(payload, "//@c").getNodeValue();
+            XmlResponsePayload payload = ((PortalIotCommandXmlResponse) response).getResponsePayload();
+            String area = payload.getAttribute("a");
+            String time = payload.getAttribute("l");
+            String count = payload.getAttribute("c");
             return new TotalStats(Integer.valueOf(area), Integer.valueOf(time), Integer.valueOf(count));
         }
     }
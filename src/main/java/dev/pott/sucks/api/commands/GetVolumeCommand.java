@@ -1,7 +1,6 @@
 package dev.pott.sucks.api.commands;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import java.lang.reflect.Type;
 
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
@@ -14,10 +13,20 @@ public class GetVolumeCommand extends IotDeviceCommand<Integer> {
         super("", "getVolume");
     }
 
-    protected void applyXmlPayload(Document doc, Element ctl) {
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
         throw new IllegalStateException("Command only supported for JSON API");
     }
 
+    @Override
+    public Type getJsonResponsePayloadType() {
+        return JsonResponse.class;
+    }
+
     public Integer convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
         if (response instanceof PortalIotCommandJsonResponse) {
             JsonResponse resp = ((PortalIotCommandJsonResponse) response).getResponsePayloadAs(gson,
@@ -3,9 +3,6 @@ package dev.pott.sucks.api.commands;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
@@ -16,10 +13,8 @@ public class GoChargingCommand extends IotDeviceCommand<Void> {
     }
 
     @Override
-    protected void applyXmlPayload(Document doc, Element ctl) {
-        Element charge = doc.createElement("charge");
-        charge.setAttribute("type", "go");
-        ctl.appendChild(charge);
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
+        ctl.startElement("charge").attribute("type", "go").endElement();
     }
 
     @Override
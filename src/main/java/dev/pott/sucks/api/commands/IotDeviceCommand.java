@@ -1,10 +1,10 @@
 package dev.pott.sucks.api.commands;
 
-import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.OutputKeys;
@@ -12,23 +12,49 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 
 import dev.pott.sucks.api.internal.dto.request.portal.PortalIotCommandRequest.JsonPayloadHeader;
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
 
 public abstract class IotDeviceCommand<RESPONSETYPE> {
+    private enum XmlPayloadSource {
+        NONE,
+        WRITER,
+        DOM
+    }
+
+    // Payloads of commands without XML arguments only depend on the command name, so they are encoded once
+    private static final Map<String, String> ARGUMENTLESS_XML_PAYLOADS = new ConcurrentHashMap<>();
+    private static final ClassValue<XmlPayloadSource> XML_PAYLOAD_SOURCES = new ClassValue<XmlPayloadSource>() {
+        @Override
+        protected XmlPayloadSource computeValue(Class<?> type) {
+            for (Class<?> c = type; c != IotDeviceCommand.class; c = c.getSuperclass()) {
+                if (declaresMethod(c, XmlPayloadWriter.class)) {
+                    return XmlPayloadSource.WRITER;
+                }
+                if (declaresMethod(c, Document.class, Element.class)) {
+                    return XmlPayloadSource.DOM;
+                }
+            }
+            return XmlPayloadSource.NONE;
+        }
+
+        private boolean declaresMethod(Class<?> c, Class<?>... parameterTypes) {
+            try {
+                c.getDeclaredMethod("applyXmlPayload", parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     private final String xmlCommandName;
     private final String jsonCommandName;
 
@@ -45,7 +71,37 @@ public abstract class IotDeviceCommand<RESPONSETYPE> {
         return false;
     }
 
+    // Commands which only query state may be sent more than once, so they are retried and hedged on transient
+    // failures. All other commands are sent at most once.
+    public boolean isReadOnly() {
+        return false;
+    }
+
     public final String getXmlPayload() throws Exception {
+        XmlPayloadSource source = XML_PAYLOAD_SOURCES.get(getClass());
+        if (source == XmlPayloadSource.DOM) {
+            return getDomXmlPayload();
+        }
+        boolean argumentless = source == XmlPayloadSource.NONE;
+        if (argumentless) {
+            String cached = ARGUMENTLESS_XML_PAYLOADS.get(xmlCommandName);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        XmlPayloadWriter writer = new XmlPayloadWriter();
+        writer.startElement("ctl").attribute("td", xmlCommandName);
+        applyXmlPayload(writer);
+        String payload = writer.finish();
+        if (argumentless) {
+            ARGUMENTLESS_XML_PAYLOADS.put(xmlCommandName, payload);
+        }
+        return payload;
+    }
+
+    // Encoding of commands still overriding the deprecated DOM based applyXmlPayload()
+    @SuppressWarnings("deprecation")
+    private String getDomXmlPayload() throws Exception {
         Document xmlDoc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
         Element ctl = xmlDoc.createElement("ctl");
         ctl.setAttribute("td", xmlCommandName);
@@ -70,28 +126,36 @@ public abstract class IotDeviceCommand<RESPONSETYPE> {
         return data;
     }
 
+    // Identifies the request sent for this command including its arguments, but without per-request header data
+    public final String getRequestKey(boolean forXml, Gson gson) throws Exception {
+        if (forXml) {
+            return getXmlPayload();
+        }
+        Object args = getJsonPayloadArgs();
+        return args != null ? jsonCommandName + gson.toJson(args) : jsonCommandName;
+    }
+
     protected Object getJsonPayloadArgs() {
         return null;
     }
 
-    protected void applyXmlPayload(Document doc, Element ctl) {
+    // Called with the ctl element's start tag still open, so both attributes and child elements can be added
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
     }
 
-    public abstract RESPONSETYPE convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception;
-
-    protected Node getFirstXPathMatch(String xml, String xpathExpression)
-            throws XPathExpressionException, NoSuchElementException {
-        return getXPathMatches(xml, xpathExpression).item(0);
+    /**
+     * @deprecated Override {@link #applyXmlPayload(XmlPayloadWriter)} instead. Commands overriding this method are
+     *             still encoded through the JDK's DOM serializer, which is considerably slower.
+     */
+    @Deprecated
+    protected void applyXmlPayload(Document doc, Element ctl) {
     }
 
-    protected NodeList getXPathMatches(String xml, String xpathExpression)
-            throws XPathExpressionException, NoSuchElementException {
-        InputSource inputXML = new InputSource(new StringReader(xml));
-        XPath xPath = XPathFactory.newInstance().newXPath();
-        NodeList nodes = (NodeList) xPath.evaluate(xpathExpression, inputXML, XPathConstants.NODESET);
-        if (nodes.getLength() == 0) {
-            throw new NoSuchElementException();
-        }
-        return nodes;
+    // Type the payload of JSON responses is decoded into while the response is read, see
+    // PortalIotCommandJsonResponse.getResponsePayloadAs(). Commands not declaring a type get the raw JSON tree.
+    public Type getJsonResponsePayloadType() {
+        return JsonElement.class;
     }
+
+    public abstract RESPONSETYPE convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception;
 }
@@ -3,9 +3,6 @@ package dev.pott.sucks.api.commands;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
@@ -58,8 +55,8 @@ public class PlaySoundCommand extends IotDeviceCommand<Void> {
     }
 
     @Override
-    protected void applyXmlPayload(Document doc, Element ctl) {
-        ctl.setAttribute("sid", String.valueOf(soundId));
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
+        ctl.attribute("sid", String.valueOf(soundId));
     }
 
     @Override
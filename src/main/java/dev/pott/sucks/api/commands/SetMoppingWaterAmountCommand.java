@@ -3,9 +3,6 @@ package dev.pott.sucks.api.commands;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
@@ -19,8 +16,8 @@ public class SetMoppingWaterAmountCommand extends IotDeviceCommand<Void> {
         this.level = amount.toApiValue();
     }
 
-    protected void applyXmlPayload(Document doc, Element ctl) {
-        ctl.setAttribute("v", String.valueOf(level));
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
+        ctl.attribute("v", String.valueOf(level));
     }
 
     protected Object getJsonPayloadArgs() {
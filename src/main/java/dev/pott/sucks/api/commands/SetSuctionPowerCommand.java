@@ -3,9 +3,6 @@ package dev.pott.sucks.api.commands;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
@@ -25,8 +22,8 @@ public class SetSuctionPowerCommand extends IotDeviceCommand<Void> {
         return args;
     }
 
-    protected void applyXmlPayload(Document doc, Element ctl) {
-        ctl.setAttribute("speed", power.toXmlValue());
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
+        ctl.attribute("speed", power.toXmlValue());
     }
 
     public Void convertResponse(AbstractPortalIotCommandResponse response, Gson gson) throws Exception {
@@ -3,9 +3,6 @@ package dev.pott.sucks.api.commands;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
@@ -27,7 +24,7 @@ public class SetVolumeCommand extends IotDeviceCommand<Void> {
         return args;
     }
 
-    protected void applyXmlPayload(Document doc, Element ctl) {
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
         throw new IllegalStateException("Command only supported for JSON API");
     }
 
@@ -3,9 +3,6 @@ package dev.pott.sucks.api.commands;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 import com.google.gson.Gson;
 
 import dev.pott.sucks.api.internal.dto.response.portal.AbstractPortalIotCommandResponse;
@@ -21,14 +18,14 @@ public class SpotAreaCleaningCommand extends IotDeviceCommand<Void> {
     }
 
     @Override
-    protected void applyXmlPayload(Document doc, Element ctl) {
-        Element clean = doc.createElement("clean");
-        clean.setAttribute("act", "s");
-        clean.setAttribute("type", "SpotArea");
-        clean.setAttribute("speed", "standard");
-        clean.setAttribute("mid", content);
-        clean.setAttribute("deep", String.valueOf(cleanPasses));
-        ctl.appendChild(clean);
+    protected void applyXmlPayload(XmlPayloadWriter ctl) {
+        ctl.startElement("clean");
+        ctl.attribute("act", "s");
+        ctl.attribute("type", "SpotArea");
+        ctl.attribute("speed", "standard");
+        ctl.attribute("mid", content);
+        ctl.attribute("deep", String.valueOf(cleanPasses));
+        ctl.endElement();
     }
 
     @Override
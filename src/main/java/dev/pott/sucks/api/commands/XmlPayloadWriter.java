@@ -0,0 +1,104 @@
+package dev.pott.sucks.api.commands;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Minimal streaming writer for XML command payloads. Its output matches what the JDK's DOM serializer produced for
+ * these payloads: attributes sorted by name, empty elements self-closed, no XML declaration and no line breaks.
+ * Attributes of an element need to be added before its first child element.
+ */
+public final class XmlPayloadWriter {
+    private final StringBuilder out = new StringBuilder(64);
+    private final Deque<String> openElements = new ArrayDeque<>();
+    private final Map<String, String> pendingAttributes = new TreeMap<>();
+    private boolean startTagOpen;
+
+    XmlPayloadWriter() {
+    }
+
+    public XmlPayloadWriter startElement(String name) {
+        closeStartTag();
+        out.append('<').append(name);
+        openElements.push(name);
+        startTagOpen = true;
+        return this;
+    }
+
+    public XmlPayloadWriter attribute(String name, String value) {
+        if (!startTagOpen) {
+            throw new IllegalStateException("Attribute " + name + " must be added before child elements");
+        }
+        pendingAttributes.put(name, value);
+        return this;
+    }
+
+    public XmlPayloadWriter endElement() {
+        String name = openElements.pop();
+        if (startTagOpen) {
+            writePendingAttributes();
+            out.append("/>");
+            startTagOpen = false;
+        } else {
+            out.append("</").append(name).append('>');
+        }
+        return this;
+    }
+
+    String finish() {
+        while (!openElements.isEmpty()) {
+            endElement();
+        }
+        return out.toString();
+    }
+
+    private void closeStartTag() {
+        if (startTagOpen) {
+            writePendingAttributes();
+            out.append('>');
+            startTagOpen = false;
+        }
+    }
+
+    private void writePendingAttributes() {
+        for (Map.Entry<String, String> attribute : pendingAttributes.entrySet()) {
+            out.append(' ').append(attribute.getKey()).append("=\"");
+            appendEscaped(attribute.getValue());
+            out.append('"');
+        }
+        pendingAttributes.clear();
+    }
+
+    private void appendEscaped(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                default:
+                    // Like the DOM serializer, write control characters and characters outside the BMP as references
+                    if (c < 0x20) {
+                        out.append("&#").append((int) c).append(';');
+                    } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        out.append("&#").append(Character.toCodePoint(c, value.charAt(i + 1))).append(';');
+                        i++;
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+    }
+}
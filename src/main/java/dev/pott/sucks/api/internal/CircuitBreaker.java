@@ -0,0 +1,114 @@
+package dev.pott.sucks.api.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.pott.sucks.api.CircuitBreakerListener;
+import dev.pott.sucks.api.CircuitBreakerState;
+
+/**
+ * Opens after a number of consecutive failures and rejects requests until the open duration has passed. Afterwards a
+ * limited number of probe requests is let through; a successful probe closes the circuit, a failed one opens it
+ * again. Every permitted request must report its outcome through exactly one of {@link #onSuccess()},
+ * {@link #onFailure()} or {@link #onIgnored()}.
+ */
+@NonNullByDefault
+final class CircuitBreaker {
+    private final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final @Nullable CircuitBreakerListener listener;
+
+    private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private int probesInFlight;
+
+    CircuitBreaker(String name, int failureThreshold, long openDurationNanos, int halfOpenProbes,
+            @Nullable CircuitBreakerListener listener) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDurationNanos;
+        this.halfOpenProbes = halfOpenProbes;
+        this.listener = listener;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    synchronized CircuitBreakerState getState() {
+        return state;
+    }
+
+    boolean tryAcquire() {
+        boolean halfOpened = false;
+        boolean permitted;
+        synchronized (this) {
+            if (state == CircuitBreakerState.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+                state = CircuitBreakerState.HALF_OPEN;
+                probesInFlight = 0;
+                halfOpened = true;
+            }
+            if (state == CircuitBreakerState.CLOSED) {
+                permitted = true;
+            } else if (state == CircuitBreakerState.HALF_OPEN && probesInFlight < halfOpenProbes) {
+                probesInFlight++;
+                permitted = true;
+            } else {
+                permitted = false;
+            }
+        }
+        if (halfOpened) {
+            notifyStateChanged(CircuitBreakerState.HALF_OPEN);
+        }
+        return permitted;
+    }
+
+    void onSuccess() {
+        synchronized (this) {
+            consecutiveFailures = 0;
+            if (state != CircuitBreakerState.HALF_OPEN) {
+                return;
+            }
+            state = CircuitBreakerState.CLOSED;
+        }
+        notifyStateChanged(CircuitBreakerState.CLOSED);
+    }
+
+    void onFailure() {
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == CircuitBreakerState.OPEN
+                    || (state == CircuitBreakerState.CLOSED && consecutiveFailures < failureThreshold)) {
+                return;
+            }
+            state = CircuitBreakerState.OPEN;
+            openedAtNanos = System.nanoTime();
+        }
+        notifyStateChanged(CircuitBreakerState.OPEN);
+    }
+
+    // For outcomes which say nothing about the health of the circuit's target
+    synchronized void onIgnored() {
+        if (state == CircuitBreakerState.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    private void notifyStateChanged(CircuitBreakerState newState) {
+        logger.debug("Circuit {} is now {}", name, newState);
+        CircuitBreakerListener listener = this.listener;
+        if (listener != null) {
+            try {
+                listener.onStateChanged(name, newState);
+            } catch (RuntimeException e) {
+                logger.warn("Circuit breaker listener failed", e);
+            }
+        }
+    }
+}
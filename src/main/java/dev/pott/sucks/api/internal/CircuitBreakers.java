@@ -0,0 +1,51 @@
+package dev.pott.sucks.api.internal;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import dev.pott.sucks.api.CircuitBreakerState;
+import dev.pott.sucks.api.EcovacsApiConfiguration;
+import dev.pott.sucks.api.EcovacsApiException;
+
+/**
+ * The circuit breakers of one API instance, created on first use.
+ */
+@NonNullByDefault
+final class CircuitBreakers {
+    private final EcovacsApiConfiguration configuration;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    CircuitBreakers(EcovacsApiConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    CircuitBreaker forEndpoint(String endpointName) {
+        return get("endpoint:" + endpointName);
+    }
+
+    CircuitBreaker forDevice(String deviceId) {
+        return get("device:" + deviceId);
+    }
+
+    Map<String, CircuitBreakerState> getStates() {
+        Map<String, CircuitBreakerState> states = new TreeMap<>();
+        for (CircuitBreaker breaker : breakers.values()) {
+            states.put(breaker.getName(), breaker.getState());
+        }
+        return states;
+    }
+
+    static EcovacsApiException createOpenCircuitException(CircuitBreaker breaker) {
+        return new EcovacsApiException("Circuit " + breaker.getName() + " is open, not sending request");
+    }
+
+    private CircuitBreaker get(String name) {
+        return breakers.computeIfAbsent(name,
+                n -> new CircuitBreaker(n, configuration.getCircuitBreakerFailureThreshold(),
+                        configuration.getCircuitBreakerOpenDuration().toNanos(),
+                        configuration.getCircuitBreakerHalfOpenProbes(), configuration.getCircuitBreakerListener()));
+    }
+}
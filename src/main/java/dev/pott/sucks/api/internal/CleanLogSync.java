@@ -0,0 +1,153 @@
+package dev.pott.sucks.api.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.pott.sucks.api.CleanHistoryStore;
+import dev.pott.sucks.api.EcovacsApiException;
+import dev.pott.sucks.api.internal.dto.response.portal.Device;
+import dev.pott.sucks.api.internal.dto.response.portal.PortalCleanLogsResponse.LogRecord;
+import dev.pott.sucks.cleaner.CleanLogRecord;
+
+/**
+ * Keeps a local copy of each device's clean logs and only requests records newer than the newest known one. The
+ * portal's GetCleanLogs only takes a count and always returns the newest records, it can't filter by time or skip
+ * records. So a small batch of the newest records is requested; if it doesn't reach back to the known records, the
+ * full capacity is requested once, which re-downloads at most that small batch.
+ */
+@NonNullByDefault
+final class CleanLogSync {
+    private static final int INCREMENTAL_BATCH_SIZE = 10;
+    private static final Comparator<LogRecord> OLDEST_FIRST = Comparator.<LogRecord> comparingLong(r -> r.timestamp)
+            .thenComparing(r -> r.id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Logger logger = LoggerFactory.getLogger(CleanLogSync.class);
+    private final EcovacsApiImpl api;
+    private final int maxCachedRecords;
+    private final @Nullable CleanHistoryStore historyStore;
+    private final Map<String, DeviceLogs> logsByDevice = new ConcurrentHashMap<>();
+
+    CleanLogSync(EcovacsApiImpl api, int maxCachedRecords, @Nullable CleanHistoryStore historyStore) {
+        this.api = api;
+        this.maxCachedRecords = maxCachedRecords;
+        this.historyStore = historyStore;
+    }
+
+    List<LogRecord> getNewestRecords(Device device, int maxCount) throws EcovacsApiException {
+        DeviceLogs logs = logsByDevice.computeIfAbsent(device.getDid(), did -> new DeviceLogs());
+        int capacity = Math.max(maxCachedRecords, maxCount);
+        synchronized (logs) {
+            boolean needsOlderRecords = logs.records.size() < maxCount && !logs.historyComplete;
+            int count = needsOlderRecords || logs.newest == null ? maxCount
+                    : Math.min(INCREMENTAL_BATCH_SIZE, maxCount);
+            List<LogRecord> added = new ArrayList<>();
+            while (count > 0) {
+                List<LogRecord> fetched = api.fetchCleanLogs(device, count);
+                boolean reachedKnownRecords = logs.merge(fetched, added);
+                if (fetched.size() < count) {
+                    logs.historyComplete = true;
+                }
+                if (reachedKnownRecords || fetched.size() < count || count >= capacity) {
+                    break;
+                }
+                count = capacity;
+            }
+            // Only stored once all batches are merged; the store accepts older records, but appending them after newer
+            // ones means rewriting the stored history
+            storeHistory(device, added);
+            logs.trimTo(capacity);
+            return newest(logs.records.values(), maxCount);
+        }
+    }
+
+    private void storeHistory(Device device, Collection<LogRecord> records) {
+        CleanHistoryStore historyStore = this.historyStore;
+        if (historyStore == null || records.isEmpty()) {
+            return;
+        }
+        List<CleanLogRecord> history = new ArrayList<>(records.size());
+        for (LogRecord record : records) {
+            history.add(new CleanLogRecord(record.timestamp, record.duration, record.area, null, record.type));
+        }
+        try {
+            historyStore.append(device.getDid(), history);
+        } catch (IOException e) {
+            logger.warn("Could not store clean history of device {}", device.getDid(), e);
+        }
+    }
+
+    // Top-k selection, only the returned records are sorted
+    static List<LogRecord> newest(Collection<LogRecord> records, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<LogRecord> heap = new PriorityQueue<>(Math.min(k, records.size()) + 1, OLDEST_FIRST);
+        for (LogRecord record : records) {
+            if (heap.size() < k) {
+                heap.add(record);
+            } else if (OLDEST_FIRST.compare(record, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(record);
+            }
+        }
+        List<LogRecord> result = new ArrayList<>(heap);
+        result.sort(OLDEST_FIRST.reversed());
+        return result;
+    }
+
+    private static class DeviceLogs {
+        final Map<String, LogRecord> records = new HashMap<>();
+        @Nullable
+        LogRecord newest;
+        boolean historyComplete;
+
+        // Returns whether the fetched records include or go beyond the newest known record. Records which weren't known
+        // yet are added to the given list.
+        boolean merge(List<LogRecord> fetched, List<LogRecord> added) {
+            LogRecord previousNewest = newest;
+            boolean reachedKnownRecords = previousNewest == null;
+            for (LogRecord record : fetched) {
+                if (previousNewest != null && OLDEST_FIRST.compare(record, previousNewest) <= 0) {
+                    reachedKnownRecords = true;
+                }
+                if (records.put(keyOf(record), record) == null) {
+                    added.add(record);
+                }
+                LogRecord currentNewest = newest;
+                if (currentNewest == null || OLDEST_FIRST.compare(record, currentNewest) > 0) {
+                    newest = record;
+                }
+            }
+            return reachedKnownRecords;
+        }
+
+        void trimTo(int capacity) {
+            int excess = records.size() - capacity;
+            if (excess <= 0) {
+                return;
+            }
+            List<LogRecord> kept = newest(records.values(), capacity);
+            records.clear();
+            for (LogRecord record : kept) {
+                records.put(keyOf(record), record);
+            }
+            historyComplete = false;
+        }
+
+        private static String keyOf(LogRecord record) {
+            return record.id != null ? record.id : String.valueOf(record.timestamp);
+        }
+    }
+}
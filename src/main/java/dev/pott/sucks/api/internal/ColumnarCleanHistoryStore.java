@@ -0,0 +1,450 @@
+package dev.pott.sucks.api.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import dev.pott.sucks.api.CleanHistoryStore;
+import dev.pott.sucks.api.CleanHistoryTotals;
+import dev.pott.sucks.api.util.MD5Util;
+import dev.pott.sucks.cleaner.CleanLogRecord;
+import dev.pott.sucks.cleaner.CleanMode;
+
+/**
+ * {@link CleanHistoryStore} keeping each device's history in its own directory with one file per column; rows are
+ * ordered by timestamp, which serves as the index for time range queries. Columns are memory-mapped for reading.
+ * <p>
+ * Records newer than all stored ones are appended. The timestamp column is written last, so its length defines the
+ * number of complete rows; data beyond that in other columns stems from an interrupted append and is discarded on
+ * open. Older records are merged in by writing a complete copy of the columns to a sibling directory, which then
+ * replaces the device directory.
+ */
+@NonNullByDefault
+public final class ColumnarCleanHistoryStore implements CleanHistoryStore {
+    private static final String TIMESTAMP_COLUMN = "timestamp.col"; // long, epoch seconds
+    private static final String DURATION_COLUMN = "duration.col"; // int, seconds
+    private static final String AREA_COLUMN = "area.col"; // int
+    private static final String MODE_COLUMN = "mode.col"; // byte, index into mode dictionary
+    private static final String MODE_DICTIONARY = "modes.txt";
+    private static final String NO_MODE = "-";
+    private static final String PENDING_SUFFIX = ".new";
+    private static final String REPLACED_SUFFIX = ".old";
+
+    private final Path directory;
+    private final Map<String, DeviceHistory> histories = new ConcurrentHashMap<>();
+
+    public ColumnarCleanHistoryStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void append(String deviceId, Collection<CleanLogRecord> records) throws IOException {
+        getHistory(deviceId).append(records);
+    }
+
+    @Override
+    public List<CleanLogRecord> getRecords(String deviceId, Instant from, Instant to) throws IOException {
+        return getHistory(deviceId).getRecords(from.getEpochSecond(), to.getEpochSecond());
+    }
+
+    @Override
+    public SortedMap<LocalDate, CleanHistoryTotals> getDailyTotals(String deviceId, Instant from, Instant to,
+            ZoneId zone) throws IOException {
+        return getHistory(deviceId).getDailyTotals(from.getEpochSecond(), to.getEpochSecond(), zone);
+    }
+
+    @Override
+    public Map<CleanMode, CleanHistoryTotals> getTotalsByMode(String deviceId, Instant from, Instant to)
+            throws IOException {
+        return getHistory(deviceId).getTotalsByMode(from.getEpochSecond(), to.getEpochSecond());
+    }
+
+    @Override
+    public int getRecordCount(String deviceId) throws IOException {
+        return getHistory(deviceId).getRecordCount();
+    }
+
+    private DeviceHistory getHistory(String deviceId) {
+        return histories.computeIfAbsent(deviceId,
+                id -> new DeviceHistory(directory.resolve(MD5Util.getMD5Hash(id))));
+    }
+
+    private static class Totals {
+        int cleanRuns;
+        long cleanedArea;
+        long cleaningDuration;
+
+        void add(int area, int duration) {
+            cleanRuns++;
+            cleanedArea += area;
+            cleaningDuration += duration;
+        }
+
+        CleanHistoryTotals toTotals() {
+            return new CleanHistoryTotals(cleanRuns, cleanedArea, cleaningDuration);
+        }
+    }
+
+    // Encoded rows, in the layout of the column files
+    private static class ColumnData {
+        final ByteBuffer timestamps;
+        final ByteBuffer durations;
+        final ByteBuffer areas;
+        final ByteBuffer modes;
+
+        ColumnData(int capacity) {
+            timestamps = ByteBuffer.allocate(capacity * Long.BYTES);
+            durations = ByteBuffer.allocate(capacity * Integer.BYTES);
+            areas = ByteBuffer.allocate(capacity * Integer.BYTES);
+            modes = ByteBuffer.allocate(capacity);
+        }
+
+        void add(long timestamp, int duration, int area, byte mode) {
+            timestamps.putLong(timestamp);
+            durations.putInt(duration);
+            areas.putInt(area);
+            modes.put(mode);
+        }
+
+        int getRowCount() {
+            return timestamps.position() / Long.BYTES;
+        }
+    }
+
+    private static class DeviceHistory {
+        private final Path directory;
+        private final List<@Nullable CleanMode> modeDictionary = new ArrayList<>();
+        private boolean opened;
+        private int rowCount;
+        private long newestTimestamp = Long.MIN_VALUE;
+
+        private int mappedRowCount = -1;
+        private LongBuffer timestamps = LongBuffer.allocate(0);
+        private IntBuffer durations = IntBuffer.allocate(0);
+        private IntBuffer areas = IntBuffer.allocate(0);
+        private ByteBuffer modes = ByteBuffer.allocate(0);
+
+        DeviceHistory(Path directory) {
+            this.directory = directory;
+        }
+
+        synchronized void append(Collection<CleanLogRecord> records) throws IOException {
+            mapColumns();
+            List<CleanLogRecord> newRecords = new ArrayList<>(records);
+            newRecords.sort(Comparator.comparing(record -> record.timestamp));
+
+            ColumnData newRows = new ColumnData(newRecords.size());
+            long lastTimestamp = Long.MIN_VALUE;
+            for (CleanLogRecord record : newRecords) {
+                long timestamp = record.timestamp.getTime() / 1000;
+                // Rows are unique by timestamp
+                if (timestamp == lastTimestamp || contains(timestamp)) {
+                    continue;
+                }
+                lastTimestamp = timestamp;
+                newRows.add(timestamp, (int) Math.min(Integer.MAX_VALUE, Math.max(0, record.cleaningDuration)),
+                        record.cleanedArea, modeCode(record.mode));
+            }
+            if (newRows.getRowCount() == 0) {
+                return;
+            }
+            if (newRows.timestamps.getLong(0) > newestTimestamp) {
+                appendRows(newRows, lastTimestamp);
+            } else {
+                rewriteWith(newRows);
+            }
+        }
+
+        private void appendRows(ColumnData rows, long newestRowTimestamp) throws IOException {
+            int appendedRowCount = rows.getRowCount();
+            Files.createDirectories(directory);
+            try {
+                appendColumn(DURATION_COLUMN, rows.durations);
+                appendColumn(AREA_COLUMN, rows.areas);
+                appendColumn(MODE_COLUMN, rows.modes);
+                appendColumn(TIMESTAMP_COLUMN, rows.timestamps);
+            } catch (IOException e) {
+                // Keep the columns aligned, so that rows appended later aren't shifted against each other
+                try {
+                    truncateColumns(rowCount);
+                } catch (IOException truncateError) {
+                    e.addSuppressed(truncateError);
+                }
+                throw e;
+            }
+            rowCount += appendedRowCount;
+            newestTimestamp = newestRowTimestamp;
+        }
+
+        // Merges the given rows with the stored ones into a new copy of the columns, which then replaces the old one
+        private void rewriteWith(ColumnData rows) throws IOException {
+            int newRowCount = rows.getRowCount();
+            int mergedRowCount = rowCount + newRowCount;
+            ColumnData merged = new ColumnData(mergedRowCount);
+            int row = 0;
+            int newRow = 0;
+            while (row < rowCount || newRow < newRowCount) {
+                if (newRow >= newRowCount
+                        || row < rowCount && timestamps.get(row) < rows.timestamps.getLong(newRow * Long.BYTES)) {
+                    merged.add(timestamps.get(row), durations.get(row), areas.get(row), modes.get(row));
+                    row++;
+                } else {
+                    merged.add(rows.timestamps.getLong(newRow * Long.BYTES),
+                            rows.durations.getInt(newRow * Integer.BYTES), rows.areas.getInt(newRow * Integer.BYTES),
+                            rows.modes.get(newRow));
+                    newRow++;
+                }
+            }
+
+            Path pending = getSibling(PENDING_SUFFIX);
+            Path replaced = getSibling(REPLACED_SUFFIX);
+            deleteRecursively(pending);
+            Files.createDirectories(pending);
+            List<String> modeNames = new ArrayList<>();
+            for (CleanMode mode : modeDictionary) {
+                modeNames.add(mode != null ? mode.name() : NO_MODE);
+            }
+            Files.write(pending.resolve(MODE_DICTIONARY), modeNames, StandardCharsets.UTF_8);
+            writeColumn(pending.resolve(DURATION_COLUMN), merged.durations, false);
+            writeColumn(pending.resolve(AREA_COLUMN), merged.areas, false);
+            writeColumn(pending.resolve(MODE_COLUMN), merged.modes, false);
+            writeColumn(pending.resolve(TIMESTAMP_COLUMN), merged.timestamps, false);
+
+            // The mappings of the old columns must not be used anymore
+            mappedRowCount = -1;
+            try {
+                Files.move(directory, replaced);
+                Files.move(pending, directory);
+                deleteRecursively(replaced);
+            } catch (IOException e) {
+                // Reopening recovers whichever copy is complete
+                opened = false;
+                modeDictionary.clear();
+                rowCount = 0;
+                newestTimestamp = Long.MIN_VALUE;
+                throw e;
+            }
+            rowCount = mergedRowCount;
+            newestTimestamp = merged.timestamps.getLong((mergedRowCount - 1) * Long.BYTES);
+        }
+
+        private boolean contains(long timestamp) {
+            int row = lowerBound(timestamp);
+            return row < mappedRowCount && timestamps.get(row) == timestamp;
+        }
+
+        synchronized List<CleanLogRecord> getRecords(long from, long to) throws IOException {
+            mapColumns();
+            List<CleanLogRecord> records = new ArrayList<>();
+            for (int row = lowerBound(from), end = lowerBound(to); row < end; row++) {
+                records.add(new CleanLogRecord(timestamps.get(row), durations.get(row), areas.get(row), null,
+                        modeDictionary.get(modes.get(row) & 0xff)));
+            }
+            return records;
+        }
+
+        synchronized SortedMap<LocalDate, CleanHistoryTotals> getDailyTotals(long from, long to, ZoneId zone)
+                throws IOException {
+            mapColumns();
+            SortedMap<LocalDate, Totals> totalsByDay = new TreeMap<>();
+            for (int row = lowerBound(from), end = lowerBound(to); row < end; row++) {
+                LocalDate day = Instant.ofEpochSecond(timestamps.get(row)).atZone(zone).toLocalDate();
+                totalsByDay.computeIfAbsent(day, d -> new Totals()).add(areas.get(row), durations.get(row));
+            }
+            SortedMap<LocalDate, CleanHistoryTotals> result = new TreeMap<>();
+            totalsByDay.forEach((day, totals) -> result.put(day, totals.toTotals()));
+            return result;
+        }
+
+        synchronized Map<CleanMode, CleanHistoryTotals> getTotalsByMode(long from, long to) throws IOException {
+            mapColumns();
+            Map<CleanMode, Totals> totalsByMode = new EnumMap<>(CleanMode.class);
+            for (int row = lowerBound(from), end = lowerBound(to); row < end; row++) {
+                CleanMode mode = modeDictionary.get(modes.get(row) & 0xff);
+                if (mode != null) {
+                    totalsByMode.computeIfAbsent(mode, m -> new Totals()).add(areas.get(row), durations.get(row));
+                }
+            }
+            Map<CleanMode, CleanHistoryTotals> result = new EnumMap<>(CleanMode.class);
+            totalsByMode.forEach((mode, totals) -> result.put(mode, totals.toTotals()));
+            return result;
+        }
+
+        synchronized int getRecordCount() throws IOException {
+            openIfNeeded();
+            return rowCount;
+        }
+
+        // First row with a timestamp not before the given one
+        private int lowerBound(long timestamp) {
+            int low = 0;
+            int high = mappedRowCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps.get(mid) < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void mapColumns() throws IOException {
+            openIfNeeded();
+            if (mappedRowCount == rowCount) {
+                return;
+            }
+            if (rowCount > 0) {
+                timestamps = map(TIMESTAMP_COLUMN, (long) rowCount * Long.BYTES).asLongBuffer();
+                durations = map(DURATION_COLUMN, (long) rowCount * Integer.BYTES).asIntBuffer();
+                areas = map(AREA_COLUMN, (long) rowCount * Integer.BYTES).asIntBuffer();
+                modes = map(MODE_COLUMN, rowCount);
+            }
+            mappedRowCount = rowCount;
+        }
+
+        private ByteBuffer map(String column, long size) throws IOException {
+            try (FileChannel channel = FileChannel.open(directory.resolve(column), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+
+        private void openIfNeeded() throws IOException {
+            if (opened) {
+                return;
+            }
+            opened = true;
+            recoverInterruptedRewrite();
+            Path dictionary = directory.resolve(MODE_DICTIONARY);
+            if (Files.exists(dictionary)) {
+                for (String name : Files.readAllLines(dictionary, StandardCharsets.UTF_8)) {
+                    modeDictionary.add(parseMode(name));
+                }
+            }
+            Path timestampFile = directory.resolve(TIMESTAMP_COLUMN);
+            if (!Files.exists(timestampFile)) {
+                return;
+            }
+            rowCount = (int) (Files.size(timestampFile) / Long.BYTES);
+            truncateColumns(rowCount);
+            if (rowCount > 0) {
+                mapColumns();
+                newestTimestamp = timestamps.get(rowCount - 1);
+            }
+        }
+
+        // The pending copy is only moved into place once complete, so if the device directory is missing, either the
+        // pending copy or the replaced directory holds the current history
+        private void recoverInterruptedRewrite() throws IOException {
+            Path pending = getSibling(PENDING_SUFFIX);
+            Path replaced = getSibling(REPLACED_SUFFIX);
+            if (!Files.exists(directory)) {
+                if (Files.exists(pending)) {
+                    Files.move(pending, directory);
+                } else if (Files.exists(replaced)) {
+                    Files.move(replaced, directory);
+                }
+            }
+            deleteRecursively(pending);
+            deleteRecursively(replaced);
+        }
+
+        private Path getSibling(String suffix) {
+            return directory.resolveSibling(directory.getFileName() + suffix);
+        }
+
+        private static void deleteRecursively(Path path) throws IOException {
+            if (!Files.exists(path)) {
+                return;
+            }
+            try (Stream<Path> paths = Files.walk(path)) {
+                Iterator<Path> iterator = paths.sorted(Comparator.reverseOrder()).iterator();
+                while (iterator.hasNext()) {
+                    Files.delete(iterator.next());
+                }
+            }
+        }
+
+        private void truncateColumns(int rows) throws IOException {
+            truncateColumn(TIMESTAMP_COLUMN, (long) rows * Long.BYTES);
+            truncateColumn(DURATION_COLUMN, (long) rows * Integer.BYTES);
+            truncateColumn(AREA_COLUMN, (long) rows * Integer.BYTES);
+            truncateColumn(MODE_COLUMN, rows);
+        }
+
+        private void truncateColumn(String column, long size) throws IOException {
+            try (FileChannel channel = FileChannel.open(directory.resolve(column), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                if (channel.size() < size) {
+                    throw new IOException("Column " + column + " in " + directory + " is incomplete");
+                }
+                channel.truncate(size);
+            }
+        }
+
+        private void appendColumn(String column, ByteBuffer data) throws IOException {
+            writeColumn(directory.resolve(column), data, true);
+        }
+
+        private static void writeColumn(Path file, ByteBuffer data, boolean append) throws IOException {
+            data.flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(false);
+            }
+        }
+
+        private byte modeCode(@Nullable CleanMode mode) throws IOException {
+            int index = modeDictionary.indexOf(mode);
+            if (index < 0) {
+                index = modeDictionary.size();
+                if (index > 0xff) {
+                    throw new IOException("Too many distinct clean modes");
+                }
+                Files.createDirectories(directory);
+                Files.write(directory.resolve(MODE_DICTIONARY),
+                        Collections.singletonList(mode != null ? mode.name() : NO_MODE), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                modeDictionary.add(mode);
+            }
+            return (byte) index;
+        }
+
+        private static @Nullable CleanMode parseMode(String name) {
+            try {
+                return NO_MODE.equals(name) ? null : CleanMode.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                // mode no longer known
+                return null;
+            }
+        }
+    }
+}
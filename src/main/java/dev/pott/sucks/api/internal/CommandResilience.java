@@ -0,0 +1,187 @@
+package dev.pott.sucks.api.internal;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.pott.sucks.api.CommandResiliencePolicy;
+import dev.pott.sucks.api.EcovacsApiException;
+import dev.pott.sucks.api.util.CompletableFutureUtils;
+
+/**
+ * Applies a {@link CommandResiliencePolicy} to requests of an endpoint. Each attempt gets a timeout derived from the
+ * latency observed for the endpoint. Read-only requests are additionally retried with jittered exponential backoff
+ * and optionally hedged.
+ */
+@NonNullByDefault
+final class CommandResilience {
+    // Below this number of samples latency percentiles are too noisy to derive timeouts or hedging delays from
+    private static final int MIN_SAMPLES = 20;
+    private static final Runnable NO_ACTION = () -> {
+    };
+
+    private final Logger logger = LoggerFactory.getLogger(CommandResilience.class);
+    private final CommandResiliencePolicy policy;
+    private final Scheduler scheduler;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    interface Attempt<T> {
+        /**
+         * Sends one attempt. The attempt must call onSent when its request is actually sent, which may be later due to
+         * rate limits, and fail with a {@link TimeoutException} if it doesn't complete within the given number of
+         * milliseconds after that. Cancelling the returned future must abort the request, that's how a losing hedged
+         * attempt is stopped.
+         */
+        CompletableFuture<T> send(long timeoutMillis, Runnable onSent);
+    }
+
+    CommandResilience(CommandResiliencePolicy policy, Scheduler scheduler) {
+        this.policy = policy;
+        this.scheduler = scheduler;
+    }
+
+    <T> CompletableFuture<T> execute(String endpoint, boolean readOnly, Attempt<T> attempt) {
+        LatencyTracker tracker = latencies.computeIfAbsent(endpoint, e -> new LatencyTracker());
+        if (!readOnly) {
+            return timedAttempt(tracker, attempt, NO_ACTION);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executeAttempt(endpoint, tracker, attempt, 1, result);
+        return result;
+    }
+
+    private <T> void executeAttempt(String endpoint, LatencyTracker tracker, Attempt<T> attempt, int attemptNumber,
+            CompletableFuture<T> result) {
+        CompletableFuture<T> future = policy.isHedgingEnabled() ? hedgedAttempt(tracker, attempt)
+                : timedAttempt(tracker, attempt, NO_ACTION);
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            EcovacsApiException apiError = CompletableFutureUtils.asApiException(error);
+            if (attemptNumber >= policy.getMaxAttempts() || !apiError.isTransient()) {
+                result.completeExceptionally(apiError);
+                return;
+            }
+            long delayMillis = getBackoffMillis(attemptNumber);
+            logger.debug("Attempt {} of {} failed, retrying in {} ms: {}", attemptNumber, endpoint, delayMillis,
+                    apiError.getMessage());
+            scheduler.schedule(() -> executeAttempt(endpoint, tracker, attempt, attemptNumber + 1, result),
+                    delayMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    // Latency is measured from sending the request, so time spent waiting for rate limits doesn't count
+    private <T> CompletableFuture<T> timedAttempt(LatencyTracker tracker, Attempt<T> attempt, Runnable onSent) {
+        long timeoutMillis = getTimeoutMillis(tracker);
+        AtomicLong sentAtNanos = new AtomicLong();
+        AtomicBoolean sent = new AtomicBoolean();
+        CompletableFuture<T> future;
+        try {
+            future = attempt.send(timeoutMillis, () -> {
+                sentAtNanos.set(System.nanoTime());
+                if (sent.compareAndSet(false, true)) {
+                    onSent.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            return CompletableFutureUtils.failedFuture(e);
+        }
+        future.whenComplete((value, error) -> {
+            if (!sent.get()) {
+                return;
+            }
+            if (error == null) {
+                tracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAtNanos.get()));
+            } else if (CompletableFutureUtils.asApiException(error).getCause() instanceof TimeoutException) {
+                // The actual latency is unknown, but at least the timeout; recording it lets the timeout grow
+                tracker.record(timeoutMillis);
+            }
+        });
+        return future;
+    }
+
+    private <T> CompletableFuture<T> hedgedAttempt(LatencyTracker tracker, Attempt<T> attempt) {
+        if (tracker.getSampleCount() < MIN_SAMPLES) {
+            return timedAttempt(tracker, attempt, NO_ACTION);
+        }
+        long hedgeDelayMillis = tracker.getPercentile(policy.getHedgingQuantile());
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        // The first successful response wins, failure is only reported once all sent requests have failed
+        BiConsumer<T, Throwable> onDone = (value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        };
+        AtomicReference<Scheduler.@Nullable Task> hedgeTask = new AtomicReference<>();
+        AtomicReference<@Nullable CompletableFuture<T>> hedge = new AtomicReference<>();
+        // The hedge delay starts once the first request is sent, a request waiting for the rate limit isn't slow
+        Runnable scheduleHedge = () -> {
+            if (result.isDone()) {
+                return;
+            }
+            hedgeTask.set(scheduler.schedule(() -> {
+                if (!result.isDone() && running.getAndIncrement() > 0) {
+                    logger.trace("Sending hedged request after {} ms", hedgeDelayMillis);
+                    CompletableFuture<T> hedged = timedAttempt(tracker, attempt, NO_ACTION);
+                    hedge.set(hedged);
+                    hedged.whenComplete(onDone);
+                    if (result.isDone()) {
+                        hedged.cancel(false);
+                    }
+                }
+            }, hedgeDelayMillis, TimeUnit.MILLISECONDS));
+        };
+        CompletableFuture<T> first = timedAttempt(tracker, attempt, scheduleHedge);
+        first.whenComplete(onDone);
+        // Abort the request that lost, so it doesn't hold a connection until it completes or times out
+        result.whenComplete((value, error) -> {
+            Scheduler.Task task = hedgeTask.get();
+            if (task != null) {
+                task.cancel();
+            }
+            first.cancel(false);
+            CompletableFuture<T> hedged = hedge.get();
+            if (hedged != null) {
+                hedged.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private long getTimeoutMillis(LatencyTracker tracker) {
+        long maxMillis = policy.getMaxTimeout().toMillis();
+        if (tracker.getSampleCount() < MIN_SAMPLES) {
+            return maxMillis;
+        }
+        long adaptiveMillis = (long) (tracker.getPercentile(0.99) * policy.getTimeoutMultiplier());
+        return Math.max(policy.getMinTimeout().toMillis(), Math.min(adaptiveMillis, maxMillis));
+    }
+
+    private long getBackoffMillis(int attemptNumber) {
+        long initialMillis = policy.getInitialBackoff().toMillis();
+        long capMillis = Math.min(policy.getMaxBackoff().toMillis(),
+                initialMillis << Math.min(attemptNumber - 1, 20));
+        return ThreadLocalRandom.current().nextLong(capMillis + 1);
+    }
+}
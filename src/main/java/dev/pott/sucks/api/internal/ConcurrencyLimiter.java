@@ -0,0 +1,79 @@
+package dev.pott.sucks.api.internal;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import dev.pott.sucks.api.util.CompletableFutureUtils;
+
+/**
+ * Limits the number of concurrently running asynchronous tasks. Tasks exceeding the limit are queued and started in
+ * submission order on the given executor once a running task completes.
+ */
+@NonNullByDefault
+final class ConcurrencyLimiter {
+    private final int maxConcurrency;
+    private final Executor executor;
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private int running;
+
+    ConcurrencyLimiter(int maxConcurrency, Executor executor) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.executor = executor;
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> future;
+            try {
+                future = task.get();
+            } catch (RuntimeException e) {
+                future = CompletableFutureUtils.failedFuture(e);
+            }
+            future.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        final boolean startNow;
+        synchronized (this) {
+            startNow = running < maxConcurrency;
+            if (startNow) {
+                running++;
+            } else {
+                pending.add(start);
+            }
+        }
+        if (startNow) {
+            start.run();
+        }
+        return result;
+    }
+
+    private void release() {
+        final Runnable next;
+        synchronized (this) {
+            next = pending.poll();
+            if (next == null) {
+                running--;
+            }
+        }
+        if (next != null) {
+            // Not run inline: a chain of tasks completing immediately would otherwise nest one stack frame per task
+            executor.execute(next);
+        }
+    }
+}
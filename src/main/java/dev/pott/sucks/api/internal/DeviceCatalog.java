@@ -0,0 +1,149 @@
+package dev.pott.sucks.api.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Catalog of supported devices, indexed by device class. The bundled device list is parsed only once per class
+ * loader and shared by all API instances. Optionally, an external file can be layered on top of the bundled list;
+ * its entries take precedence and it is reloaded whenever its modification time changes.
+ */
+@NonNullByDefault
+final class DeviceCatalog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceCatalog.class);
+    private static final String BUNDLED_LIST_RESOURCE = "devices/supported_device_list.json";
+    private static final Map<Path, DeviceCatalog> FILE_CATALOGS = new ConcurrentHashMap<>();
+
+    private static class BundledHolder {
+        static final DeviceCatalog INSTANCE = new DeviceCatalog(null);
+    }
+
+    private final @Nullable Path overrideFile;
+    private final List<DeviceDescription> bundledDescriptions;
+    private volatile Map<String, DeviceDescription> descriptionsByClass;
+    private @Nullable FileTime overrideFileModificationTime;
+
+    private DeviceCatalog(@Nullable Path overrideFile) {
+        this.overrideFile = overrideFile;
+        this.bundledDescriptions = overrideFile == null ? loadBundledDescriptions()
+                : BundledHolder.INSTANCE.bundledDescriptions;
+        this.descriptionsByClass = overrideFile == null ? resolveLinks(bundledDescriptions)
+                : BundledHolder.INSTANCE.descriptionsByClass;
+    }
+
+    static DeviceCatalog getInstance(@Nullable Path overrideFile) {
+        if (overrideFile == null) {
+            return BundledHolder.INSTANCE;
+        }
+        return FILE_CATALOGS.computeIfAbsent(overrideFile.toAbsolutePath().normalize(), DeviceCatalog::new);
+    }
+
+    /**
+     * Returns an immutable snapshot of all supported device descriptions, keyed by device class. Device class links
+     * are already resolved.
+     */
+    Map<String, DeviceDescription> getDescriptionsByClass() {
+        Path file = overrideFile;
+        if (file != null) {
+            reloadIfModified(file);
+        }
+        return descriptionsByClass;
+    }
+
+    private synchronized void reloadIfModified(Path file) {
+        final FileTime modificationTime;
+        try {
+            modificationTime = Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            if (overrideFileModificationTime != null) {
+                LOGGER.info("Device list {} was removed, using bundled device list", file);
+                overrideFileModificationTime = null;
+                descriptionsByClass = BundledHolder.INSTANCE.descriptionsByClass;
+            }
+            return;
+        } catch (IOException e) {
+            LOGGER.warn("Could not check device list {} for modifications", file, e);
+            return;
+        }
+        if (modificationTime.equals(overrideFileModificationTime)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, DeviceDescription> merged = new HashMap<>();
+            for (DeviceDescription desc : bundledDescriptions) {
+                merged.put(desc.deviceClass, desc);
+            }
+            for (DeviceDescription desc : parse(new JsonReader(reader))) {
+                merged.put(desc.deviceClass, desc);
+            }
+            descriptionsByClass = resolveLinks(merged.values());
+            overrideFileModificationTime = modificationTime;
+            LOGGER.debug("Loaded device list {}, {} device classes known", file, descriptionsByClass.size());
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            LOGGER.warn("Could not load device list {}, keeping previous device list", file, e);
+        }
+    }
+
+    private static List<DeviceDescription> loadBundledDescriptions() {
+        InputStream is = DeviceCatalog.class.getClassLoader().getResourceAsStream(BUNDLED_LIST_RESOURCE);
+        if (is == null) {
+            throw new IllegalStateException("Bundled device list " + BUNDLED_LIST_RESOURCE + " is missing");
+        }
+        try (Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            return parse(new JsonReader(reader));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read bundled device list", e);
+        }
+    }
+
+    private static List<DeviceDescription> parse(JsonReader reader) {
+        Type type = new TypeToken<List<DeviceDescription>>() {
+        }.getType();
+        List<DeviceDescription> descs = new Gson().fromJson(reader, type);
+        return descs != null ? descs : Collections.emptyList();
+    }
+
+    private static Map<String, DeviceDescription> resolveLinks(Iterable<DeviceDescription> descs) {
+        Map<String, DeviceDescription> byClass = new HashMap<>();
+        for (DeviceDescription desc : descs) {
+            byClass.put(desc.deviceClass, desc);
+        }
+        Map<String, DeviceDescription> result = new HashMap<>();
+        for (DeviceDescription desc : byClass.values()) {
+            if (desc.deviceClassLink != null) {
+                DeviceDescription linkedDesc = byClass.get(desc.deviceClassLink);
+                if (linkedDesc == null) {
+                    throw new IllegalStateException(
+                            "Desc " + desc.deviceClass + " links unknown desc " + desc.deviceClassLink);
+                }
+                result.put(desc.deviceClass, desc.resolveLinkWith(linkedDesc));
+            } else {
+                result.put(desc.deviceClass, desc);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,73 @@
+package dev.pott.sucks.api.internal;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import dev.pott.sucks.api.DeviceProperty;
+
+/**
+ * Last known state of a device, fed by MQTT pushes and command responses. Values are only served while the MQTT
+ * connection is up and pushes changes of all cached properties, since only then missed changes are unlikely, and only
+ * as long as they are younger than the maximum age configured for their property.
+ */
+@NonNullByDefault
+final class DeviceStateCache {
+    private final Map<DeviceProperty, Long> maxAgeNanos = new EnumMap<>(DeviceProperty.class);
+    private final Map<DeviceProperty, Entry> entries = new EnumMap<>(DeviceProperty.class);
+    private volatile boolean live;
+    private long invalidatedAtNanos = System.nanoTime();
+
+    private static class Entry {
+        final Object value;
+        final long observedAtNanos;
+
+        Entry(Object value, long observedAtNanos) {
+            this.value = value;
+            this.observedAtNanos = observedAtNanos;
+        }
+    }
+
+    DeviceStateCache(Map<DeviceProperty, Duration> maxAges) {
+        for (Map.Entry<DeviceProperty, Duration> entry : maxAges.entrySet()) {
+            maxAgeNanos.put(entry.getKey(), entry.getValue().toNanos());
+        }
+    }
+
+    void setLive(boolean live) {
+        this.live = live;
+    }
+
+    void update(DeviceProperty property, Object value) {
+        update(property, value, System.nanoTime());
+    }
+
+    // Values observed before the currently cached one or before the last invalidation are dropped, so a slow command
+    // response can't overwrite newer state
+    synchronized void update(DeviceProperty property, Object value, long observedAtNanos) {
+        if (observedAtNanos - invalidatedAtNanos < 0) {
+            return;
+        }
+        Entry entry = entries.get(property);
+        if (entry == null || entry.observedAtNanos - observedAtNanos <= 0) {
+            entries.put(property, new Entry(value, observedAtNanos));
+        }
+    }
+
+    synchronized void invalidate() {
+        entries.clear();
+        invalidatedAtNanos = System.nanoTime();
+    }
+
+    synchronized @Nullable Object getFresh(DeviceProperty property) {
+        Long maxAge = maxAgeNanos.get(property);
+        Entry entry = entries.get(property);
+        if (!live || maxAge == null || entry == null || System.nanoTime() - entry.observedAtNanos > maxAge) {
+            return null;
+        }
+        return entry.value;
+    }
+}
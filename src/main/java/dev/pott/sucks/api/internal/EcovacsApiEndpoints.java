@@ -0,0 +1,53 @@
+package dev.pott.sucks.api.internal;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import dev.pott.sucks.api.EcovacsApiConfiguration;
+
+/**
+ * Endpoints of one API instance. URLs are built and parsed once from the configuration instead of on every request.
+ */
+@NonNullByDefault
+final class EcovacsApiEndpoints {
+    final URI login;
+    final URI authCode;
+    final URI portalUsers;
+    final URI portalProductIotMap;
+    final URI portalIotDeviceManager;
+    final URI portalLog;
+    final String mqttHost;
+    final int mqttPort;
+    private final Map<String, String> namesByLocation = new HashMap<>();
+
+    EcovacsApiEndpoints(EcovacsApiConfiguration config) {
+        this.login = URI.create(EcovacsApiUrlFactory.getLoginUrl(config));
+        this.authCode = URI.create(EcovacsApiUrlFactory.getAuthUrl(config));
+        this.portalUsers = URI.create(EcovacsApiUrlFactory.getPortalUsersUrl(config));
+        this.portalProductIotMap = URI.create(EcovacsApiUrlFactory.getPortalProductIotMapUrl(config));
+        this.portalIotDeviceManager = URI.create(EcovacsApiUrlFactory.getPortalIotDeviceManagerUrl(config));
+        this.portalLog = URI.create(EcovacsApiUrlFactory.getPortalLogUrl(config));
+        this.mqttHost = EcovacsApiUrlFactory.getMqttHost(config);
+        this.mqttPort = config.getMqttPort();
+
+        addName(login, "login");
+        addName(authCode, "authCode");
+        addName(portalUsers, "users");
+        addName(portalProductIotMap, "productIotMap");
+        addName(portalIotDeviceManager, "devmanager");
+        addName(portalLog, "log");
+    }
+
+    // Short name of the endpoint a request goes to, ignoring its query; falls back to the host for unknown endpoints
+    String getName(String host, String path) {
+        String name = namesByLocation.get(host + path);
+        return name != null ? name : host;
+    }
+
+    private void addName(URI endpoint, String name) {
+        namesByLocation.put(endpoint.getHost() + endpoint.getPath(), name);
+    }
+}
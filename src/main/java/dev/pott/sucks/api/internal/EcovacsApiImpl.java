@@ -1,39 +1,69 @@
 package dev.pott.sucks.api.internal;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeoutException;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.AbstractConnectionPool;
+import org.eclipse.jetty.client.ConnectionPool;
 import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.client.HttpContentResponse;
 import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Destination;
 import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.eclipse.jetty.client.util.StringContentProvider;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 
+import dev.pott.sucks.api.CircuitBreakerState;
+import dev.pott.sucks.api.DiscoveryStatistics;
 import dev.pott.sucks.api.EcovacsApi;
 import dev.pott.sucks.api.EcovacsApiConfiguration;
 import dev.pott.sucks.api.EcovacsApiException;
 import dev.pott.sucks.api.EcovacsDevice;
+import dev.pott.sucks.api.EventPipelineStatistics;
+import dev.pott.sucks.api.HttpPoolStatistics;
+import dev.pott.sucks.api.RateLimitListener;
+import dev.pott.sucks.api.RateLimitMode;
+import dev.pott.sucks.api.SessionStore;
 import dev.pott.sucks.api.commands.IotDeviceCommand;
 import dev.pott.sucks.api.internal.dto.request.portal.*;
 import dev.pott.sucks.api.internal.dto.response.main.AccessData;
 import dev.pott.sucks.api.internal.dto.response.main.AuthCode;
 import dev.pott.sucks.api.internal.dto.response.main.ResponseWrapper;
 import dev.pott.sucks.api.internal.dto.response.portal.*;
+import dev.pott.sucks.api.util.CompletableFutureUtils;
 import dev.pott.sucks.api.util.MD5Util;
 
 @NonNullByDefault
@@ -44,13 +74,51 @@ public final class EcovacsApiImpl implements EcovacsApi {
     private final Gson gson = new Gson();
 
     private final EcovacsApiConfiguration configuration;
-    private final Map<String, String> meta = new HashMap<>();
-    private @Nullable PortalLoginResponse loginData;
+    private final DeviceCatalog deviceCatalog;
+    private final EcovacsApiEndpoints endpoints;
+    private final MapImageLoader mapImageLoader;
+    private final CleanLogSync cleanLogSync;
+    private final CommandResilience commandResilience;
+    private final CircuitBreakers circuitBreakers;
+    private final RateLimiter rateLimiter;
+    private final MqttConnectionManager mqttConnectionManager;
+    private final Map<String, CompletableFuture<?>> inFlightReadCommands = new ConcurrentHashMap<>();
+    private final RequestSigner mainApiSigner;
+    private final RequestSigner authApiSigner;
+    private final String sessionKey;
+    private volatile @Nullable PortalLoginResponse loginData;
+    private volatile @Nullable AccessData accessData;
+    private volatile long sessionCreatedAtMillis;
+    private final Object sessionRenewalLock = new Object();
+    // Written under sessionRenewalLock, read without it to check whether a renewal is due
+    private volatile @Nullable CompletableFuture<Void> pendingSessionRenewal;
+    private volatile @Nullable CompletableFuture<Void> rejectedSessionRenewal;
+    private @Nullable DiscoveryStatistics lastDiscoveryStatistics;
+    private @Nullable Map<String, IotProduct> productMap;
+    private long productMapTimestamp;
 
     public EcovacsApiImpl(HttpClient httpClient, EcovacsApiConfiguration configuration) {
         this.httpClient = httpClient;
         this.configuration = configuration;
-
+        this.deviceCatalog = DeviceCatalog.getInstance(configuration.getDeviceCatalogFile());
+        this.endpoints = new EcovacsApiEndpoints(configuration);
+        Path mapImageCacheDirectory = configuration.getMapImageCacheDirectory();
+        MapImageCache mapImageCache = mapImageCacheDirectory != null
+                ? new MapImageCache(mapImageCacheDirectory, configuration.getMapImageCacheMaxBytes())
+                : null;
+        this.mapImageLoader = new MapImageLoader(this, mapImageCache, configuration.getMapImageDownloadConcurrency(),
+                configuration.getCommandExecutor());
+        this.cleanLogSync = new CleanLogSync(this, configuration.getMaxCachedCleanLogs(),
+                configuration.getCleanHistoryStore());
+        this.commandResilience = new CommandResilience(configuration.getCommandResiliencePolicy(),
+                httpClient.getScheduler());
+        this.circuitBreakers = new CircuitBreakers(configuration);
+        this.rateLimiter = new RateLimiter(configuration);
+        this.mqttConnectionManager = new MqttConnectionManager(this);
+        this.sessionKey = MD5Util.getMD5Hash(String.join("|", configuration.getUsername(),
+                configuration.getContinent(), configuration.getCountry(), configuration.getDeviceId()));
+
+        Map<String, String> meta = new HashMap<>();
         meta.put(RequestQueryParameter.META_COUNTRY, configuration.getCountry());
         meta.put(RequestQueryParameter.META_LANG, configuration.getLanguage());
         meta.put(RequestQueryParameter.META_DEVICE_ID, configuration.getDeviceId());
@@ -58,21 +126,181 @@ public final class EcovacsApiImpl implements EcovacsApi {
         meta.put(RequestQueryParameter.META_APP_VERSION, configuration.getAppVersion());
         meta.put(RequestQueryParameter.META_CHANNEL, configuration.getChannel());
         meta.put(RequestQueryParameter.META_DEVICE_TYPE, configuration.getDeviceType());
+        this.mainApiSigner = new RequestSigner(configuration.getClientKey(), configuration.getClientSecret(), meta);
+        this.authApiSigner = new RequestSigner(configuration.getAuthClientKey(), configuration.getAuthClientSecret(),
+                Collections.emptyMap());
     }
 
     @Override
     public void loginAndGetAccessToken() throws EcovacsApiException {
-        loginData = null;
+        StoredSession session = loadStoredSession();
+        if (session != null) {
+            // Not validated here, the session is replaced as soon as the portal rejects it
+            accessData = session.accessData;
+            loginData = session.loginData;
+            sessionCreatedAtMillis = session.createdAtMillis;
+            logger.debug("Reusing stored session of user {}", session.loginData.getUserId());
+            return;
+        }
+        performLogin(null);
+    }
+
+    private synchronized void performLogin(@Nullable AccessData previousAccessData) throws EcovacsApiException {
+        AccessData accessData = previousAccessData;
+        AuthCode authCode = null;
+        if (accessData != null) {
+            try {
+                authCode = getAuthCode(accessData);
+            } catch (EcovacsApiException e) {
+                logger.debug("Stored access token was rejected, logging in again", e);
+            }
+        }
+        if (accessData == null || authCode == null) {
+            accessData = login();
+            authCode = getAuthCode(accessData);
+        }
+        PortalLoginResponse loginData = portalLogin(authCode, accessData);
+        long now = System.currentTimeMillis();
+        this.accessData = accessData;
+        this.loginData = loginData;
+        this.sessionCreatedAtMillis = now;
+        storeSession(new StoredSession(accessData, loginData, now));
+    }
+
+    /**
+     * Replaces the given session by a new one, unless that already happened. Concurrent callers share a single login.
+     *
+     * @param staleLoginData The session that should be replaced
+     * @param rejected Whether the portal rejected the session; if so, new requests wait for the renewal instead of
+     *            being sent with the rejected session
+     */
+    private CompletableFuture<Void> renewSession(@Nullable PortalLoginResponse staleLoginData, boolean rejected) {
+        synchronized (sessionRenewalLock) {
+            if (loginData != staleLoginData) {
+                // Someone else renewed the session already
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> renewal = pendingSessionRenewal;
+            if (renewal == null) {
+                logger.debug("Renewing session, reason: {}", rejected ? "rejected by portal" : "refresh interval");
+                AccessData previousAccessData = accessData;
+                CompletableFuture<Void> newRenewal = new CompletableFuture<>();
+                // Logging in blocks on several requests, so it runs on its own short-lived thread instead of taking
+                // a command executor thread, which by default belongs to the common pool
+                Thread loginThread = new Thread(() -> {
+                    try {
+                        performLogin(previousAccessData);
+                        newRenewal.complete(null);
+                    } catch (EcovacsApiException | RuntimeException e) {
+                        newRenewal.completeExceptionally(e);
+                    }
+                }, "ecovacs-session-renewal");
+                loginThread.setDaemon(true);
+                pendingSessionRenewal = newRenewal;
+                if (rejected) {
+                    rejectedSessionRenewal = newRenewal;
+                }
+                newRenewal.whenComplete((result, error) -> {
+                    synchronized (sessionRenewalLock) {
+                        pendingSessionRenewal = null;
+                        rejectedSessionRenewal = null;
+                    }
+                    if (error != null) {
+                        logger.warn("Renewing session failed: {}",
+                                CompletableFutureUtils.asApiException(error).getMessage());
+                        if (rejected) {
+                            // The stored session is the rejected one, don't restore it on the next start
+                            removeStoredSession();
+                        }
+                    }
+                });
+                loginThread.start();
+                renewal = newRenewal;
+            } else if (rejected && !renewal.isDone()) {
+                rejectedSessionRenewal = renewal;
+            }
+            return renewal;
+        }
+    }
 
-        AccessData accessData = login();
-        AuthCode authCode = getAuthCode(accessData);
-        loginData = portalLogin(authCode, accessData);
+    private void renewSessionIfDue() {
+        Duration refreshInterval = configuration.getSessionRefreshInterval();
+        PortalLoginResponse currentLoginData = loginData;
+        if (refreshInterval == null || currentLoginData == null || pendingSessionRenewal != null) {
+            return;
+        }
+        if (System.currentTimeMillis() - sessionCreatedAtMillis >= refreshInterval.toMillis()) {
+            // Requests continue to use the current session until the new one is available
+            renewSession(currentLoginData, false);
+        }
+    }
+
+    private @Nullable StoredSession loadStoredSession() {
+        SessionStore store = configuration.getSessionStore();
+        if (store == null) {
+            return null;
+        }
+        try {
+            String json = store.load(sessionKey);
+            StoredSession session = json != null ? gson.fromJson(json, StoredSession.class) : null;
+            if (session == null || session.loginData == null || session.accessData == null) {
+                return null;
+            }
+            return session;
+        } catch (IOException | JsonParseException e) {
+            logger.debug("Could not load stored session, logging in again", e);
+            return null;
+        }
+    }
+
+    private void storeSession(StoredSession session) {
+        SessionStore store = configuration.getSessionStore();
+        if (store == null) {
+            return;
+        }
+        try {
+            store.store(sessionKey, gson.toJson(session));
+        } catch (IOException e) {
+            logger.warn("Could not store session, next start needs to log in again", e);
+        }
+    }
+
+    private void removeStoredSession() {
+        SessionStore store = configuration.getSessionStore();
+        if (store == null) {
+            return;
+        }
+        try {
+            store.remove(sessionKey);
+        } catch (IOException e) {
+            logger.warn("Could not remove rejected session", e);
+        }
     }
 
     EcovacsApiConfiguration getConfig() {
         return configuration;
     }
 
+    EcovacsApiEndpoints getEndpoints() {
+        return endpoints;
+    }
+
+    MqttConnectionManager getMqttConnectionManager() {
+        return mqttConnectionManager;
+    }
+
+    Scheduler getScheduler() {
+        return httpClient.getScheduler();
+    }
+
+    MapImageLoader getMapImageLoader() {
+        return mapImageLoader;
+    }
+
+    CleanLogSync getCleanLogSync() {
+        return cleanLogSync;
+    }
+
     @Nullable
     PortalLoginResponse getLoginData() {
         return loginData;
@@ -86,19 +314,13 @@ public final class EcovacsApiImpl implements EcovacsApi {
         loginParameters.put(RequestQueryParameter.AUTH_REQUEST_ID,
                 MD5Util.getMD5Hash(String.valueOf(System.currentTimeMillis())));
         loginParameters.put(RequestQueryParameter.AUTH_TIME_ZONE, configuration.getTimeZone());
-        loginParameters.putAll(meta);
 
-        HashMap<String, String> signedRequestParameters = getSignedRequestParameters(loginParameters);
-        String loginUrl = EcovacsApiUrlFactory.getLoginUrl(configuration.getCountry(), configuration.getLanguage(),
-                configuration.getDeviceId(), configuration.getAppCode(), configuration.getAppVersion(),
-                configuration.getChannel(), configuration.getDeviceType());
-        Request loginRequest = httpClient.newRequest(loginUrl).method(HttpMethod.GET);
-        signedRequestParameters.forEach(loginRequest::param);
+        Request loginRequest = httpClient.newRequest(endpoints.login).method(HttpMethod.GET);
+        mainApiSigner.signAndApply(loginRequest, loginParameters);
 
-        ContentResponse loginResponse = executeRequest(loginRequest);
         Type responseType = new TypeToken<ResponseWrapper<AccessData>>() {
         }.getType();
-        return handleResponseWrapper(gson.fromJson(loginResponse.getContentAsString(), responseType));
+        return executeJsonRequest(loginRequest, reader -> handleResponseWrapper(gson.fromJson(reader, responseType)));
     }
 
     private AuthCode getAuthCode(AccessData accessData) throws EcovacsApiException {
@@ -109,16 +331,13 @@ public final class EcovacsApiImpl implements EcovacsApi {
         authCodeParameters.put(RequestQueryParameter.AUTH_CODE_DEVICE_ID, configuration.getDeviceId());
         authCodeParameters.put(RequestQueryParameter.AUTH_OPEN_ID, configuration.getAuthOpenId());
 
-        HashMap<String, String> signedRequestParameters = getSignedRequestParameters(authCodeParameters,
-                configuration.getAuthClientKey(), configuration.getAuthClientSecret());
-        String authCodeUrl = EcovacsApiUrlFactory.getAuthUrl(configuration.getCountry());
-        Request authCodeRequest = httpClient.newRequest(authCodeUrl).method(HttpMethod.GET);
-        signedRequestParameters.forEach(authCodeRequest::param);
+        Request authCodeRequest = httpClient.newRequest(endpoints.authCode).method(HttpMethod.GET);
+        authApiSigner.signAndApply(authCodeRequest, authCodeParameters);
 
-        ContentResponse authCodeResponse = executeRequest(authCodeRequest);
         Type responseType = new TypeToken<ResponseWrapper<AuthCode>>() {
         }.getType();
-        return handleResponseWrapper(gson.fromJson(authCodeResponse.getContentAsString(), responseType));
+        return executeJsonRequest(authCodeRequest,
+                reader -> handleResponseWrapper(gson.fromJson(reader, responseType)));
     }
 
     private PortalLoginResponse portalLogin(AuthCode authCode, AccessData accessData) throws EcovacsApiException {
@@ -126,11 +345,10 @@ public final class EcovacsApiImpl implements EcovacsApi {
                 configuration.getCountry(), "", configuration.getOrg(), configuration.getResource(),
                 configuration.getRealm(), authCode.getAuthCode(), accessData.getUid(), configuration.getEdition());
         String json = gson.toJson(loginRequestData);
-        String userUrl = EcovacsApiUrlFactory.getPortalUsersUrl(configuration.getContinent());
-        Request loginRequest = httpClient.newRequest(userUrl).method(HttpMethod.POST)
+        Request loginRequest = httpClient.newRequest(endpoints.portalUsers).method(HttpMethod.POST)
                 .header(HttpHeader.CONTENT_TYPE, "application/json").content(new StringContentProvider(json));
-        ContentResponse portalLoginResponse = executeRequest(loginRequest);
-        PortalLoginResponse response = handleResponse(portalLoginResponse, PortalLoginResponse.class);
+        PortalLoginResponse response = executeJsonRequest(loginRequest,
+                reader -> handleResponse(reader, PortalLoginResponse.class));
         if (!response.wasSuccessful()) {
             throw new EcovacsApiException("Login failed");
         }
@@ -139,106 +357,255 @@ public final class EcovacsApiImpl implements EcovacsApi {
 
     @Override
     public List<EcovacsDevice> getDevices() throws EcovacsApiException {
-        List<DeviceDescription> descriptions = getSupportedDeviceList();
-        List<IotProduct> products = null;
-        List<EcovacsDevice> devices = new ArrayList<>();
-        for (Device dev : getDeviceList()) {
-            Optional<DeviceDescription> descOpt = descriptions.stream()
-                    .filter(d -> dev.getDeviceClass().equals(d.deviceClass)).findFirst();
-            if (!descOpt.isPresent()) {
-                if (products == null) {
-                    products = getIotProductMap();
-                }
-                Optional<IotProduct> product = products.stream()
-                        .filter(prod -> dev.getDeviceClass().equals(prod.getClassId())).findFirst();
+        long startNanos = System.nanoTime();
+        Map<String, DeviceDescription> descriptions = deviceCatalog.getDescriptionsByClass();
+        List<Device> deviceList = getDeviceList();
+        Duration deviceListDuration = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        int unsupportedDeviceCount = 0;
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(configuration.getDiscoveryConcurrency(),
+                configuration.getCommandExecutor());
+        Map<String, Duration> hydrationDurations = new ConcurrentHashMap<>();
+        Set<String> failedDeviceIds = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Optional<EcovacsIotMqDevice>>> pendingDevices = new ArrayList<>();
+        for (Device dev : deviceList) {
+            DeviceDescription desc = descriptions.get(dev.getDeviceClass());
+            if (desc == null) {
+                IotProduct product = getIotProductMap().get(dev.getDeviceClass());
                 logger.info("Found unsupported device {} (class {}), ignoring.",
-                        product.isPresent() ? product.get().getDefinition().name : "UNKNOWN", dev.getDeviceClass());
+                        product != null ? product.getDefinition().name : "UNKNOWN", dev.getDeviceClass());
+                unsupportedDeviceCount++;
                 continue;
             }
-            DeviceDescription desc = descOpt.get();
             if (desc.usesMqtt) {
-                devices.add(new EcovacsIotMqDevice(dev, desc, this, gson));
+                pendingDevices.add(hydrateDevice(limiter, dev, desc, hydrationDurations, failedDeviceIds));
             } else {
                 // TODO: XMPP device
             }
         }
+
+        List<EcovacsDevice> devices = new ArrayList<>();
+        for (CompletableFuture<Optional<EcovacsIotMqDevice>> pending : pendingDevices) {
+            CompletableFutureUtils.await(pending).ifPresent(devices::add);
+        }
+
+        DiscoveryStatistics statistics = new DiscoveryStatistics(Duration.ofNanos(System.nanoTime() - startNanos),
+                deviceListDuration, hydrationDurations, failedDeviceIds, unsupportedDeviceCount);
+        logger.debug("Device discovery finished: {}", statistics);
+        lastDiscoveryStatistics = statistics;
         return devices;
     }
 
-    private List<DeviceDescription> getSupportedDeviceList() {
-        InputStream is = getClass().getClassLoader().getResourceAsStream("devices/supported_device_list.json");
-        JsonReader reader = new JsonReader(new InputStreamReader(is));
-        Type type = new TypeToken<List<DeviceDescription>>() {
-        }.getType();
-        List<DeviceDescription> descs = gson.fromJson(reader, type);
-        return descs.stream().map(desc -> {
-            final DeviceDescription result;
-            if (desc.deviceClassLink != null) {
-                Optional<DeviceDescription> linkedDescOpt = descs.stream()
-                        .filter(d -> d.deviceClass.equals(desc.deviceClassLink)).findFirst();
-                if (!linkedDescOpt.isPresent()) {
-                    throw new IllegalStateException(
-                            "Desc " + desc.deviceClass + " links unknown desc " + desc.deviceClassLink);
-                }
-                result = desc.resolveLinkWith(linkedDescOpt.get());
+    @Override
+    public @Nullable DiscoveryStatistics getLastDiscoveryStatistics() {
+        return lastDiscoveryStatistics;
+    }
+
+    @Override
+    public Map<String, CircuitBreakerState> getCircuitBreakerStates() {
+        return circuitBreakers.getStates();
+    }
+
+    @Override
+    public EventPipelineStatistics getEventPipelineStatistics() {
+        return mqttConnectionManager.getEventPipeline().getStatistics();
+    }
+
+    @Override
+    public void close() {
+        mqttConnectionManager.close();
+    }
+
+    @Override
+    public List<HttpPoolStatistics> getHttpPoolStatistics() {
+        List<HttpPoolStatistics> result = new ArrayList<>();
+        for (Destination destination : httpClient.getDestinations()) {
+            if (!(destination instanceof HttpDestination)) {
+                continue;
+            }
+            HttpDestination httpDestination = (HttpDestination) destination;
+            String name = destination.getScheme() + "://" + destination.getHost() + ":" + destination.getPort();
+            ConnectionPool pool = httpDestination.getConnectionPool();
+            if (pool instanceof AbstractConnectionPool) {
+                AbstractConnectionPool stats = (AbstractConnectionPool) pool;
+                result.add(new HttpPoolStatistics(name, stats.getConnectionCount(), stats.getActiveConnectionCount(),
+                        stats.getIdleConnectionCount(), stats.getPendingConnectionCount(),
+                        stats.getMaxConnectionCount(), httpDestination.getQueuedRequestCount()));
             } else {
-                result = desc;
+                result.add(new HttpPoolStatistics(name, 0, 0, 0, 0, 0, httpDestination.getQueuedRequestCount()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Hydrates a device once the limiter allows it. A device exceeding the hydration timeout is reported as failed,
+     * but its limiter slot is only released once its requests have finished, so slow devices can't exceed the
+     * discovery concurrency.
+     */
+    private CompletableFuture<Optional<EcovacsIotMqDevice>> hydrateDevice(ConcurrencyLimiter limiter, Device dev,
+            DeviceDescription desc, Map<String, Duration> hydrationDurations, Set<String> failedDeviceIds) {
+        CompletableFuture<Optional<EcovacsIotMqDevice>> result = new CompletableFuture<>();
+        limiter.submit(() -> {
+            long startNanos = System.nanoTime();
+            CompletableFuture<EcovacsIotMqDevice> creation;
+            try {
+                creation = EcovacsIotMqDevice.createAsync(dev, desc, this, gson,
+                        configuration.isEagerDeviceHydration());
+            } catch (RuntimeException e) {
+                creation = CompletableFutureUtils.failedFuture(e);
             }
-            return result;
-        }).collect(Collectors.toList());
+            // Never fail the result, a single unresponsive device must not fail the whole device list
+            CompletableFutureUtils.withTimeout(creation, httpClient.getScheduler(),
+                    configuration.getDeviceHydrationTimeout().toMillis()).whenComplete((device, error) -> {
+                        hydrationDurations.put(dev.getDid(), Duration.ofNanos(System.nanoTime() - startNanos));
+                        if (error != null) {
+                            failedDeviceIds.add(dev.getDid());
+                            logger.warn("Could not initialize device {} ({}), ignoring it: {}", dev.getName(),
+                                    desc.modelName, CompletableFutureUtils.asApiException(error).getMessage());
+                            result.complete(Optional.empty());
+                        } else {
+                            result.complete(Optional.of(device));
+                        }
+                    });
+            return creation;
+        });
+        return result;
     }
 
     private List<Device> getDeviceList() throws EcovacsApiException {
-        PortalAuthRequest data = new PortalAuthRequest(PortalTodo.GET_DEVICE_LIST, createAuthData());
-        String json = gson.toJson(data);
-        String userUrl = EcovacsApiUrlFactory.getPortalUsersUrl(configuration.getContinent());
-        Request deviceRequest = httpClient.newRequest(userUrl).method(HttpMethod.POST)
-                .header(HttpHeader.CONTENT_TYPE, "application/json").content(new StringContentProvider(json));
-        ContentResponse deviceResponse = executeRequest(deviceRequest);
-        return handleResponse(deviceResponse, PortalDeviceResponse.class).getDevices();
+        return CompletableFutureUtils.await(executePortalRequestAsync(
+                () -> createJsonPostRequest(endpoints.portalUsers,
+                        new PortalAuthRequest(PortalTodo.GET_DEVICE_LIST, createAuthData())),
+                response -> handleResponse(response, PortalDeviceResponse.class).getDevices()));
     }
 
-    private List<IotProduct> getIotProductMap() throws EcovacsApiException {
-        PortalIotProductRequest data = new PortalIotProductRequest(createAuthData());
-        String json = gson.toJson(data);
-        String url = EcovacsApiUrlFactory.getPortalProductIotMapUrl(configuration.getContinent());
-        Request deviceRequest = httpClient.newRequest(url).method(HttpMethod.POST)
-                .header(HttpHeader.CONTENT_TYPE, "application/json").content(new StringContentProvider(json));
-        ContentResponse deviceResponse = executeRequest(deviceRequest);
-        return handleResponse(deviceResponse, PortalIotProductResponse.class).getProducts();
+    private Map<String, IotProduct> getIotProductMap() throws EcovacsApiException {
+        Map<String, IotProduct> productMap = this.productMap;
+        long ttlNanos = configuration.getProductMapCacheTtl().toNanos();
+        if (productMap != null && System.nanoTime() - productMapTimestamp < ttlNanos) {
+            return productMap;
+        }
+
+        List<IotProduct> products = CompletableFutureUtils.await(executePortalRequestAsync(
+                () -> createJsonPostRequest(endpoints.portalProductIotMap,
+                        new PortalIotProductRequest(createAuthData())),
+                response -> handleResponse(response, PortalIotProductResponse.class).getProducts()));
+        productMap = new HashMap<>();
+        for (IotProduct product : products) {
+            productMap.put(product.getClassId(), product);
+        }
+        this.productMap = productMap;
+        this.productMapTimestamp = System.nanoTime();
+        return productMap;
     }
 
     public <T> T sendIotCommand(Device device, DeviceDescription desc, IotDeviceCommand<T> command)
             throws EcovacsApiException {
+        return CompletableFutureUtils.await(sendIotCommandAsync(device, desc, command));
+    }
+
+    public <T> CompletableFuture<T> sendIotCommandAsync(Device device, DeviceDescription desc,
+            IotDeviceCommand<T> command) {
+        return sendIotCommandAsync(device, desc, command, null);
+    }
+
+    /**
+     * Sends a command to a device. Read-only commands are coalesced: while an identical command to the same device is
+     * in flight, callers share its request and result instead of sending their own.
+     *
+     * @param blockingCaller The thread of the public API call sending the command, which sleeps for rate limits in
+     *            {@link RateLimitMode#BLOCK}; null if the command is sent on the library's behalf
+     */
+    public <T> CompletableFuture<T> sendIotCommandAsync(Device device, DeviceDescription desc,
+            IotDeviceCommand<T> command, @Nullable Thread blockingCaller) {
         boolean useJson = desc.usesJsonApi && !command.forceXmlFormat();
+        if (!command.isReadOnly()) {
+            return sendIotCommandAsync(device, command, useJson, blockingCaller);
+        }
+        final String key;
+        try {
+            // Different command classes may use the same command name with different response conversions
+            key = device.getDid() + '|' + command.getClass().getName() + '|' + command.getRequestKey(!useJson, gson);
+        } catch (Exception e) {
+            logger.debug("Could not convert payload for command " + command, e);
+            return CompletableFutureUtils.failedFuture(new EcovacsApiException(e));
+        }
+
+        CompletableFuture<T> flight = new CompletableFuture<>();
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> existingFlight = (CompletableFuture<T>) inFlightReadCommands.putIfAbsent(key, flight);
+        if (existingFlight != null) {
+            logger.trace("Joining in-flight IOT command {}", command.getName(!useJson));
+            // Hand out dependent futures, so that one caller can't complete or cancel the shared one for all others
+            return existingFlight.thenApply(Function.identity());
+        }
+        sendIotCommandAsync(device, command, useJson, blockingCaller).whenComplete((value, error) -> {
+            // Remove before completing, so callers reacting to the result start a new request
+            inFlightReadCommands.remove(key, flight);
+            CompletableFutureUtils.completing(flight).accept(value, error);
+        });
+        return flight.thenApply(Function.identity());
+    }
+
+    private <T> CompletableFuture<T> sendIotCommandAsync(Device device, IotDeviceCommand<T> command,
+            boolean useJson, @Nullable Thread blockingCaller) {
         final Object payload;
         try {
             payload = useJson ? command.getJsonPayload(gson) : command.getXmlPayload();
         } catch (Exception e) {
             logger.debug("Could not convert payload for command " + command, e);
-            throw new EcovacsApiException(e);
+            return CompletableFutureUtils.failedFuture(new EcovacsApiException(e));
         }
 
-        PortalIotCommandRequest data = new PortalIotCommandRequest(createAuthData(), command.getName(!useJson), payload,
-                device.getDid(), device.getResource(), device.getDeviceClass(), useJson);
-        String json = gson.toJson(data);
-        String url = EcovacsApiUrlFactory.getPortalIotDeviceManagerUrl(configuration.getContinent());
-        Request request = httpClient.newRequest(url).method(HttpMethod.POST)
-                .header(HttpHeader.CONTENT_TYPE, "application/json").content(new StringContentProvider(json));
-        ContentResponse response = executeRequest(request);
-
-        logger.trace("Sent IOT command " + json);
-        logger.trace("Got response " + response.getContentAsString());
+        CircuitBreaker deviceBreaker = circuitBreakers.forDevice(device.getDid());
+        if (!deviceBreaker.tryAcquire()) {
+            return CompletableFutureUtils.failedFuture(CircuitBreakers.createOpenCircuitException(deviceBreaker));
+        }
+        String commandName = command.getName(!useJson);
+        CompletableFuture<T> future = commandResilience.execute(commandName, command.isReadOnly(),
+                (timeoutMillis, onSent) -> executeCancellablePortalRequestAsync(() -> {
+                    PortalIotCommandRequest data = new PortalIotCommandRequest(createAuthData(), commandName, payload,
+                            device.getDid(), device.getResource(), device.getDeviceClass(), useJson);
+                    logger.trace("Sending IOT command {}", commandName);
+                    return createJsonPostRequest(endpoints.portalIotDeviceManager, data)
+                            .timeout(timeoutMillis, TimeUnit.MILLISECONDS).onRequestBegin(request -> onSent.run());
+                }, reader -> convertIotCommandResponse(reader, command, useJson), blockingCaller));
+        return future.whenComplete((value, error) -> {
+            if (error == null) {
+                deviceBreaker.onSuccess();
+            } else if (CompletableFutureUtils.asApiException(error) instanceof RecipientUnavailableException) {
+                deviceBreaker.onFailure();
+            } else {
+                deviceBreaker.onIgnored();
+            }
+        });
+    }
 
+    private <T> T convertIotCommandResponse(JsonReader reader, IotDeviceCommand<T> command, boolean useJson)
+            throws EcovacsApiException {
         final AbstractPortalIotCommandResponse commandResponse;
         if (useJson) {
-            commandResponse = handleResponse(response, PortalIotCommandJsonResponse.class);
+            try {
+                commandResponse = PortalIotCommandJsonResponseReader.read(reader, gson,
+                        command.getJsonResponsePayloadType());
+            } catch (IOException e) {
+                throw new EcovacsApiException(e);
+            }
         } else {
-            commandResponse = handleResponse(response, PortalIotCommandXmlResponse.class);
+            commandResponse = handleResponse(reader, PortalIotCommandXmlResponse.class);
         }
+        logger.trace("Got response for IOT command {}", command.getName(!useJson));
         if (!commandResponse.wasSuccessful()) {
-            throw new EcovacsApiException("Sending IOT command " + command.getName(!useJson) + " failed: "
-                    + commandResponse.getFailureMessage());
+            if ("404".equals(commandResponse.getErrorCode())) {
+                throw new RecipientUnavailableException("Device did not accept IOT command "
+                        + command.getName(!useJson) + ": " + commandResponse.getFailureMessage());
+            }
+            // errno 500 means the device didn't answer the portal in time
+            throw new EcovacsApiException(
+                    "Sending IOT command " + command.getName(!useJson) + " failed: "
+                            + commandResponse.getFailureMessage(),
+                    commandResponse.failedDueToAuthProblem(), "500".equals(commandResponse.getErrorCode()));
         }
         try {
             return command.convertResponse(commandResponse, gson);
@@ -248,24 +615,28 @@ public final class EcovacsApiImpl implements EcovacsApi {
         }
     }
 
-    public List<PortalCleanLogsResponse.LogRecord> fetchCleanLogs(Device device) throws EcovacsApiException {
-        PortalCleanLogsRequest data = new PortalCleanLogsRequest(createAuthData(), device.getDid(),
-                device.getResource());
-        String json = gson.toJson(data);
-        String url = EcovacsApiUrlFactory.getPortalLogUrl(configuration.getContinent());
-        Request request = httpClient.newRequest(url).method(HttpMethod.POST)
-                .header(HttpHeader.CONTENT_TYPE, "application/json").content(new StringContentProvider(json));
-        ContentResponse response = executeRequest(request);
-        PortalCleanLogsResponse responseObj = handleResponse(response, PortalCleanLogsResponse.class);
-        if (!responseObj.wasSuccessful()) {
-            throw new EcovacsApiException("Fetching clean logs failed");
-        }
-        return responseObj.records;
+    public List<PortalCleanLogsResponse.LogRecord> fetchCleanLogs(Device device, int count)
+            throws EcovacsApiException {
+        return CompletableFutureUtils.await(fetchCleanLogsAsync(device, count));
     }
 
-    public byte[] fetchDataFromurl(String url) throws EcovacsApiException {
-        Request request = httpClient.newRequest(url);
-        return executeRequest(request).getContent();
+    public CompletableFuture<List<PortalCleanLogsResponse.LogRecord>> fetchCleanLogsAsync(Device device, int count) {
+        return executePortalRequestAsync(
+                () -> createJsonPostRequest(endpoints.portalLog,
+                        new PortalCleanLogsRequest(createAuthData(), device.getDid(), device.getResource(), count)),
+                response -> {
+                    PortalCleanLogsResponse responseObj = handleResponse(response, PortalCleanLogsResponse.class);
+                    if (!responseObj.wasSuccessful()) {
+                        throw new EcovacsApiException("Fetching clean logs failed",
+                                responseObj.failedDueToAuthProblem());
+                    }
+                    List<PortalCleanLogsResponse.LogRecord> records = responseObj.records;
+                    return records != null ? records : Collections.emptyList();
+                });
+    }
+
+    CompletableFuture<byte[]> fetchDataFromUrlAsync(String url) {
+        return executeRequestAsync(httpClient.newRequest(url)).thenApply(ContentResponse::getContent);
     }
 
     private PortalAuthRequestParameter createAuthData() {
@@ -288,46 +659,268 @@ public final class EcovacsApiImpl implements EcovacsApi {
         return response.getData();
     }
 
-    private <T> T handleResponse(ContentResponse response, Class<T> clazz) throws EcovacsApiException {
+    private <T> T handleResponse(JsonReader reader, Class<T> clazz) throws EcovacsApiException {
         @Nullable
-        T respObject = gson.fromJson(response.getContentAsString(), clazz);
+        T respObject = gson.fromJson(reader, clazz);
         if (respObject == null) {
             // should not happen in practice
             throw new EcovacsApiException("No response received");
         }
+        if (respObject instanceof AbstractPortalResponse) {
+            AbstractPortalResponse portalResponse = (AbstractPortalResponse) respObject;
+            if (portalResponse.failedDueToAuthProblem()) {
+                throw new EcovacsApiException("Portal rejected session: " + portalResponse.getErrorMessage(), true);
+            }
+        }
         return respObject;
     }
 
-    private ContentResponse executeRequest(Request request) throws EcovacsApiException {
-        try {
-            ContentResponse response = request.send();
-            if (response.getStatus() != HttpStatus.OK_200) {
-                throw new EcovacsApiException(response);
+    private Request createJsonPostRequest(URI url, Object data) {
+        return httpClient.newRequest(url).method(HttpMethod.POST).header(HttpHeader.CONTENT_TYPE, "application/json")
+                .content(new StringContentProvider(gson.toJson(data)));
+    }
+
+    /**
+     * Executes a request carrying the session's auth data. The request is created by the given factory, so that it
+     * can be recreated with new auth data: if the portal rejects the session, it is renewed and the request is sent
+     * once more.
+     */
+    private <T> CompletableFuture<T> executePortalRequestAsync(Supplier<Request> requestFactory,
+            ResponseHandler<T> responseHandler) {
+        return executePortalRequestAsync(requestFactory, responseHandler, true, null);
+    }
+
+    /**
+     * Like {@link #executePortalRequestAsync(Supplier, ResponseHandler)}, but cancelling the returned future aborts the
+     * request, including one that is only created later, e.g. after a session renewal.
+     */
+    private <T> CompletableFuture<T> executeCancellablePortalRequestAsync(Supplier<Request> requestFactory,
+            ResponseHandler<T> responseHandler, @Nullable Thread blockingCaller) {
+        AtomicReference<@Nullable Request> lastRequest = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CompletableFuture<T> future = executePortalRequestAsync(() -> {
+            Request request = requestFactory.get();
+            lastRequest.set(request);
+            if (cancelled.get()) {
+                request.abort(new CancellationException("Request was cancelled"));
             }
-            return response;
-        } catch (InterruptedException | TimeoutException | ExecutionException e) {
-            throw new EcovacsApiException(e);
+            return request;
+        }, responseHandler, true, blockingCaller);
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                cancelled.set(true);
+                Request request = lastRequest.get();
+                if (request != null) {
+                    request.abort(new CancellationException("Request was cancelled"));
+                }
+            }
+        });
+        return future;
+    }
+
+    private <T> CompletableFuture<T> executePortalRequestAsync(Supplier<Request> requestFactory,
+            ResponseHandler<T> responseHandler, boolean renewSessionOnAuthFailure, @Nullable Thread blockingCaller) {
+        CompletableFuture<Void> rejectedSessionRenewal = this.rejectedSessionRenewal;
+        if (rejectedSessionRenewal != null) {
+            return rejectedSessionRenewal.thenCompose(
+                    ignored -> executePortalRequestAsync(requestFactory, responseHandler, renewSessionOnAuthFailure,
+                            null));
+        }
+        renewSessionIfDue();
+
+        PortalLoginResponse usedLoginData = loginData;
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executeJsonRequestAsync(requestFactory.get(), responseHandler, blockingCaller).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            EcovacsApiException apiError = CompletableFutureUtils.asApiException(error);
+            if (!renewSessionOnAuthFailure || !apiError.isAuthFailure()) {
+                result.completeExceptionally(apiError);
+                return;
+            }
+            renewSession(usedLoginData, true)
+                    .thenCompose(ignored -> executePortalRequestAsync(requestFactory, responseHandler, false, null))
+                    .whenComplete(CompletableFutureUtils.completing(result));
+        });
+        return result;
+    }
+
+    /**
+     * Executes a request and decodes its JSON body once it has been received completely. No thread waits for the
+     * content while it arrives; decoding the buffered body runs on the command executor instead of the HTTP client's
+     * threads. The body is decoded straight from the listener's buffer, without copying it into a string first.
+     */
+    private <T> CompletableFuture<T> executeJsonRequestAsync(Request request, ResponseHandler<T> responseHandler,
+            @Nullable Thread blockingCaller) {
+        JsonResponseListener listener = send(request, blockingCaller);
+        return listener.content.thenApplyAsync(content -> {
+            try {
+                return decodeJsonResponse(content, listener.getEncoding(), responseHandler);
+            } catch (EcovacsApiException e) {
+                throw new CompletionException(e);
+            }
+        }, configuration.getCommandExecutor());
+    }
+
+    // Decodes on the calling thread, so that blocking callers don't depend on a free command executor thread. The
+    // caller waits for the response anyway, so a request delayed by rate limits is queued instead of sleeping first.
+    private <T> T executeJsonRequest(Request request, ResponseHandler<T> responseHandler) throws EcovacsApiException {
+        JsonResponseListener listener = send(request, null);
+        InputStream content = CompletableFutureUtils.await(listener.content);
+        return decodeJsonResponse(content, listener.getEncoding(), responseHandler);
+    }
+
+    /**
+     * Sends a request once its circuit and the rate limits allow it. Waiting for the rate limits is done by scheduling
+     * the request for later, unless the rate limit mode is BLOCK and this runs on the given caller thread, which then
+     * sleeps. Retries and continuations run on other threads, so they are always queued.
+     */
+    private JsonResponseListener send(Request request, @Nullable Thread blockingCaller) {
+        String endpointName = endpoints.getName(request.getHost(), request.getPath());
+        JsonResponseListener listener = new JsonResponseListener();
+        // Checked before reserving a permit, so that requests failing fast don't use up the rate limit
+        CircuitBreaker breaker = circuitBreakers.forEndpoint(endpointName);
+        if (!breaker.tryAcquire()) {
+            listener.fail(CircuitBreakers.createOpenCircuitException(breaker));
+            return listener;
+        }
+        // The circuit learns from the response headers; requests failing before that, e.g. for the rate limit, aren't
+        // transient failures and are ignored
+        listener.headers.whenComplete((response, error) -> {
+            if (error == null) {
+                breaker.onSuccess();
+            } else if (CompletableFutureUtils.asApiException(error).isTransient()) {
+                breaker.onFailure();
+            } else {
+                breaker.onIgnored();
+            }
+        });
+
+        long waitNanos = rateLimiter.reserve(endpointName, configuration.getRateLimitMaxWait().toNanos());
+        if (waitNanos < 0) {
+            listener.fail(
+                    new EcovacsApiException("Rate limit for " + endpointName + " exceeded, not sending request"));
+            return listener;
+        }
+        if (waitNanos == 0) {
+            request.send(listener);
+            return listener;
+        }
+
+        logger.trace("Delaying request to {} by {} ms for rate limit", endpointName,
+                TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        RateLimitListener rateLimitListener = configuration.getRateLimitListener();
+        if (rateLimitListener != null) {
+            rateLimitListener.onRequestDelayed(endpointName, Duration.ofNanos(waitNanos));
         }
+        if (configuration.getRateLimitMode() == RateLimitMode.QUEUE || Thread.currentThread() != blockingCaller) {
+            httpClient.getScheduler().schedule(() -> request.send(listener), waitNanos, TimeUnit.NANOSECONDS);
+            return listener;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            listener.fail(new EcovacsApiException(e));
+            return listener;
+        }
+        request.send(listener);
+        return listener;
     }
 
-    private HashMap<String, String> getSignedRequestParameters(Map<String, String> requestSpecificParameters) {
-        return getSignedRequestParameters(requestSpecificParameters, configuration.getClientKey(),
-                configuration.getClientSecret());
+    private <T> T decodeJsonResponse(InputStream content, @Nullable String encoding,
+            ResponseHandler<T> responseHandler) throws EcovacsApiException {
+        try {
+            return responseHandler.handle(new JsonReader(new InputStreamReader(content, getCharset(encoding))));
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new EcovacsApiException(e);
+        }
     }
 
-    private HashMap<String, String> getSignedRequestParameters(Map<String, String> requestSpecificParameters,
-            String clientKey, String clientSecret) {
-        HashMap<String, String> signedRequestParameters = new HashMap<>(requestSpecificParameters);
-        signedRequestParameters.put(RequestQueryParameter.AUTH_TIMESPAN, String.valueOf(System.currentTimeMillis()));
+    private static Charset getCharset(@Nullable String encoding) {
+        if (encoding != null) {
+            try {
+                return Charset.forName(encoding);
+            } catch (IllegalArgumentException e) {
+                // fall back to default below
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
 
-        StringBuilder signOnText = new StringBuilder(clientKey);
-        signedRequestParameters.keySet().stream().sorted().forEach(key -> {
-            signOnText.append(key).append("=").append(signedRequestParameters.get(key));
+    private CompletableFuture<ContentResponse> executeRequestAsync(Request request) {
+        CompletableFuture<ContentResponse> future = new CompletableFuture<>();
+        request.send(new BufferingResponseListener() {
+            @Override
+            public void onComplete(Result result) {
+                if (result.isFailed()) {
+                    future.completeExceptionally(new EcovacsApiException(result.getFailure()));
+                    return;
+                }
+                Response response = result.getResponse();
+                if (response.getStatus() != HttpStatus.OK_200) {
+                    future.completeExceptionally(new EcovacsApiException(response));
+                    return;
+                }
+                future.complete(new HttpContentResponse(response, getContent(), getMediaType(), getEncoding()));
+            }
         });
-        signOnText.append(clientSecret);
+        return future;
+    }
+
+    // Buffers the body; the headers are reported separately, so the circuit breaker learns about failures early
+    private static class JsonResponseListener extends BufferingResponseListener {
+        // Clean logs and product lists of large accounts exceed Jetty's default limit of 2 MB
+        private static final int MAX_CONTENT_LENGTH = 64 * 1024 * 1024;
+
+        final CompletableFuture<Response> headers = new CompletableFuture<>();
+        final CompletableFuture<InputStream> content = new CompletableFuture<>();
+
+        JsonResponseListener() {
+            super(MAX_CONTENT_LENGTH);
+        }
+
+        @Override
+        public void onHeaders(Response response) {
+            super.onHeaders(response);
+            if (response.getStatus() != HttpStatus.OK_200) {
+                response.abort(new EcovacsApiException(response));
+                return;
+            }
+            headers.complete(response);
+        }
+
+        @Override
+        public void onComplete(Result result) {
+            if (result.isFailed()) {
+                Throwable failure = result.getFailure();
+                fail(failure instanceof EcovacsApiException ? (EcovacsApiException) failure
+                        : new EcovacsApiException(failure));
+                return;
+            }
+            // Reads the buffer in place, unlike getContent(), which copies it
+            content.complete(getContentAsInputStream());
+        }
+
+        void fail(EcovacsApiException error) {
+            headers.completeExceptionally(error);
+            content.completeExceptionally(error);
+        }
+    }
+
+    // Portal error 404: the device is offline or otherwise not reachable by the portal
+    private static class RecipientUnavailableException extends EcovacsApiException {
+        private static final long serialVersionUID = 1L;
+
+        RecipientUnavailableException(String reason) {
+            super(reason);
+        }
+    }
 
-        signedRequestParameters.put(RequestQueryParameter.AUTH_APPKEY, clientKey);
-        signedRequestParameters.put(RequestQueryParameter.AUTH_SIGN, MD5Util.getMD5Hash(signOnText.toString()));
-        return signedRequestParameters;
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        T handle(JsonReader reader) throws EcovacsApiException;
     }
 }
@@ -2,6 +2,9 @@ package dev.pott.sucks.api.internal;
 
 import java.util.HashMap;
 
+import org.eclipse.jdt.annotation.Nullable;
+
+import dev.pott.sucks.api.EcovacsApiConfiguration;
 import dev.pott.sucks.api.util.StringPlaceholderUtils;
 
 public final class EcovacsApiUrlFactory {
@@ -10,16 +13,21 @@ public final class EcovacsApiUrlFactory {
         // Prevent instantiation
     }
 
-    private static final String MAIN_URL_FORMAT = "https://gl-{country}-api.ecovacs.com/v1/private/{country}/{lang}/{deviceId}/{appCode}/{appVersion}/{channel}/{deviceType}";
+    private static final String MAIN_BASE_URL_FORMAT = "https://gl-{country}-api.ecovacs.com";
+    private static final String MAIN_URL_PATH_FORMAT = "/v1/private/{country}/{lang}/{deviceId}/{appCode}/{appVersion}/{channel}/{deviceType}";
     private static final String MAIN_URL_LOGIN_PATH = "/user/login";
 
-    private static final String PORTAL_URL_FORMAT = "https://portal-{continent}.ecouser.net/api";
+    private static final String PORTAL_BASE_URL_FORMAT = "https://portal-{continent}.ecouser.net";
+    private static final String PORTAL_API_PATH = "/api";
     private static final String PORTAL_USERS_PATH = "/users/user.do";
     private static final String PORTAL_IOT_PRODUCT_PATH = "/pim/product/getProductIotMap";
     private static final String PORTAL_IOT_DEVMANAGER_PATH = "/iot/devmanager.do";
     private static final String PORTAL_LOG_PATH = "/lg/log.do";
 
-    private static final String AUTH_URL_FORMAT = "https://gl-{country}-openapi.ecovacs.com/v1/global/auth/getAuthCode";
+    private static final String AUTH_BASE_URL_FORMAT = "https://gl-{country}-openapi.ecovacs.com";
+    private static final String AUTH_CODE_PATH = "/v1/global/auth/getAuthCode";
+
+    private static final String MQTT_HOST_FORMAT = "mq-{continent}.ecouser.net";
 
     private static final String COUNTRY_PLACEHOLDER = "{country}";
     private static final String LANGUAGE_PLACEHOLDER = "{lang}";
@@ -30,49 +38,67 @@ public final class EcovacsApiUrlFactory {
     private static final String DEVICE_TYPE_PLACEHOLDER = "{deviceType}";
     private static final String CONTINENT_PLACEHOLDER = "{continent}";
 
-    public static String getLoginUrl(String country, String language, String deviceId, String appCode,
-            String appVersion, String channel, String deviceType) {
-        return getMainUrl(country, language, deviceId, appCode, appVersion, channel, deviceType) + MAIN_URL_LOGIN_PATH;
+    public static String getLoginUrl(EcovacsApiConfiguration config) {
+        return getMainUrl(config) + MAIN_URL_LOGIN_PATH;
     }
 
-    public static String getAuthUrl(String country) {
+    public static String getAuthUrl(EcovacsApiConfiguration config) {
         HashMap<String, String> placeholder = new HashMap<>();
-        placeholder.put(COUNTRY_PLACEHOLDER, country);
-        return StringPlaceholderUtils.replacePlaceHolders(AUTH_URL_FORMAT, placeholder);
+        placeholder.put(COUNTRY_PLACEHOLDER, config.getCountry());
+        return baseUrl(config.getAuthApiBaseUrl(), AUTH_BASE_URL_FORMAT, placeholder) + AUTH_CODE_PATH;
     }
 
-    public static String getPortalUsersUrl(String continent) {
-        return getPortalUrl(continent) + PORTAL_USERS_PATH;
+    public static String getPortalUsersUrl(EcovacsApiConfiguration config) {
+        return getPortalUrl(config) + PORTAL_USERS_PATH;
     }
 
-    public static String getPortalProductIotMapUrl(String continent) {
-        return getPortalUrl(continent) + PORTAL_IOT_PRODUCT_PATH;
+    public static String getPortalProductIotMapUrl(EcovacsApiConfiguration config) {
+        return getPortalUrl(config) + PORTAL_IOT_PRODUCT_PATH;
     }
 
-    public static String getPortalIotDeviceManagerUrl(String continent) {
-        return getPortalUrl(continent) + PORTAL_IOT_DEVMANAGER_PATH;
+    public static String getPortalIotDeviceManagerUrl(EcovacsApiConfiguration config) {
+        return getPortalUrl(config) + PORTAL_IOT_DEVMANAGER_PATH;
     }
 
-    public static String getPortalLogUrl(String continent) {
-        return getPortalUrl(continent) + PORTAL_LOG_PATH;
+    public static String getPortalLogUrl(EcovacsApiConfiguration config) {
+        return getPortalUrl(config) + PORTAL_LOG_PATH;
     }
 
-    private static String getPortalUrl(String continent) {
+    public static String getMqttHost(EcovacsApiConfiguration config) {
+        String host = config.getMqttHost();
+        if (host != null) {
+            return host;
+        }
         HashMap<String, String> placeholder = new HashMap<>();
-        placeholder.put(CONTINENT_PLACEHOLDER, continent);
-        return StringPlaceholderUtils.replacePlaceHolders(PORTAL_URL_FORMAT, placeholder);
+        placeholder.put(CONTINENT_PLACEHOLDER, config.getContinent());
+        return StringPlaceholderUtils.replacePlaceHolders(MQTT_HOST_FORMAT, placeholder);
     }
 
-    private static String getMainUrl(String country, String language, String deviceId, String appCode,
-            String appVersion, String channel, String deviceType) {
+    private static String getPortalUrl(EcovacsApiConfiguration config) {
         HashMap<String, String> placeholder = new HashMap<>();
-        placeholder.put(COUNTRY_PLACEHOLDER, country);
-        placeholder.put(LANGUAGE_PLACEHOLDER, language);
-        placeholder.put(DEVICE_ID_PLACEHOLDER, deviceId);
-        placeholder.put(APP_CODE_PLACEHOLDER, appCode);
-        placeholder.put(APP_VERSION_PLACEHOLDER, appVersion);
-        placeholder.put(CHANNEL_PLACEHOLDER, channel);
-        placeholder.put(DEVICE_TYPE_PLACEHOLDER, deviceType);
-        return StringPlaceholderUtils.replacePlaceHolders(MAIN_URL_FORMAT, placeholder);
+        placeholder.put(CONTINENT_PLACEHOLDER, config.getContinent());
+        return baseUrl(config.getPortalBaseUrl(), PORTAL_BASE_URL_FORMAT, placeholder) + PORTAL_API_PATH;
+    }
+
+    private static String getMainUrl(EcovacsApiConfiguration config) {
+        HashMap<String, String> placeholder = new HashMap<>();
+        placeholder.put(COUNTRY_PLACEHOLDER, config.getCountry());
+        placeholder.put(LANGUAGE_PLACEHOLDER, config.getLanguage());
+        placeholder.put(DEVICE_ID_PLACEHOLDER, config.getDeviceId());
+        placeholder.put(APP_CODE_PLACEHOLDER, config.getAppCode());
+        placeholder.put(APP_VERSION_PLACEHOLDER, config.getAppVersion());
+        placeholder.put(CHANNEL_PLACEHOLDER, config.getChannel());
+        placeholder.put(DEVICE_TYPE_PLACEHOLDER, config.getDeviceType());
+        return baseUrl(config.getMainApiBaseUrl(), MAIN_BASE_URL_FORMAT, placeholder)
+                + StringPlaceholderUtils.replacePlaceHolders(MAIN_URL_PATH_FORMAT, placeholder);
+    }
+
+    private static String baseUrl(@Nullable String overriddenBaseUrl, String defaultFormat,
+            HashMap<String, String> placeholder) {
+        if (overriddenBaseUrl != null) {
+            return overriddenBaseUrl.endsWith("/") ? overriddenBaseUrl.substring(0, overriddenBaseUrl.length() - 1)
+                    : overriddenBaseUrl;
+        }
+        return StringPlaceholderUtils.replacePlaceHolders(defaultFormat, placeholder);
     }
 }
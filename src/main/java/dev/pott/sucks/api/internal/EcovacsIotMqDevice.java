@@ -1,27 +1,25 @@
 package dev.pott.sucks.api.internal;
 
-import java.security.KeyStore;
-import java.security.cert.X509Certificate;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
-import javax.net.ssl.ManagerFactoryParameters;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.TrustManagerFactory;
-import javax.net.ssl.X509TrustManager;
-
-import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
-import com.hivemq.client.mqtt.MqttClient;
-import com.hivemq.client.mqtt.MqttClientSslConfig;
-import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
-import com.hivemq.client.mqtt.mqtt3.message.auth.Mqtt3SimpleAuth;
 
-import dev.pott.sucks.api.EcovacsApiConfiguration;
+import dev.pott.sucks.api.DeviceEventType;
+import dev.pott.sucks.api.DeviceProperty;
 import dev.pott.sucks.api.EcovacsApiException;
 import dev.pott.sucks.api.EcovacsDevice;
 import dev.pott.sucks.api.commands.GetBatteryInfoCommand;
@@ -39,26 +37,71 @@ import dev.pott.sucks.api.internal.dto.response.deviceapi.ErrorReport;
 import dev.pott.sucks.api.internal.dto.response.deviceapi.StatsReport;
 import dev.pott.sucks.api.internal.dto.response.deviceapi.WaterInfoReport;
 import dev.pott.sucks.api.internal.dto.response.portal.Device;
-import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse.JsonResponsePayloadWrapper;
-import dev.pott.sucks.api.internal.dto.response.portal.PortalLoginResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse.JsonPayloadHeader;
+import dev.pott.sucks.api.util.CompletableFutureUtils;
 import dev.pott.sucks.cleaner.ChargeMode;
+import dev.pott.sucks.cleaner.CleanLogImage;
 import dev.pott.sucks.cleaner.CleanLogRecord;
 import dev.pott.sucks.cleaner.CleanMode;
 import dev.pott.sucks.cleaner.DeviceCapability;
 import dev.pott.sucks.cleaner.ErrorDescription;
 import dev.pott.sucks.cleaner.MoppingWaterAmount;
-import io.netty.handler.ssl.util.SimpleTrustManagerFactory;
 
 public class EcovacsIotMqDevice implements EcovacsDevice {
+    private static final Map<Class<?>, DeviceProperty> CACHEABLE_COMMANDS = new HashMap<>();
+    static {
+        CACHEABLE_COMMANDS.put(GetBatteryInfoCommand.class, DeviceProperty.BATTERY_LEVEL);
+        CACHEABLE_COMMANDS.put(GetChargeStateCommand.class, DeviceProperty.CHARGE_MODE);
+        CACHEABLE_COMMANDS.put(GetCleanStateCommand.class, DeviceProperty.CLEAN_MODE);
+        CACHEABLE_COMMANDS.put(GetWaterSystemPresentCommand.class, DeviceProperty.WATER_SYSTEM_PRESENT);
+        CACHEABLE_COMMANDS.put(GetMoppingWaterAmountCommand.class, DeviceProperty.MOPPING_WATER_AMOUNT);
+    }
+
+    // Handlers of pushed JSON events, keyed by lower case event name without prefix and version suffix. Events of
+    // other types, like evt, lifespan or speed, are not handled yet.
+    private static final Map<String, JsonEventHandler<?>> JSON_EVENT_HANDLERS = new HashMap<>();
+    // Handlers keyed by all event names that may appear in topics, like onBattery, reportStats or onCleanInfo_V2.
+    // Looked up ignoring case; names from the network are never added.
+    private static final Map<String, JsonEventHandler<?>> JSON_EVENT_ROUTES;
+    static {
+        addJsonEventHandler("battery", BatteryReport.class,
+                (device, report) -> device.handleBatteryLevelUpdate(report.percent));
+        addJsonEventHandler("chargestate", ChargeReport.class,
+                (device, report) -> device.handleChargingStateUpdate(report.isCharging != 0));
+        addJsonEventHandler("cleaninfo", CleanReport.class,
+                (device, report) -> device.handleCleanModeUpdate(report.determineCleanMode(device.gson)));
+        addJsonEventHandler("error", ErrorReport.class, (device, report) -> {
+            if (!report.errorCodes.isEmpty()) {
+                device.handleErrorReport(report.errorCodes.get(0));
+            }
+        });
+        addJsonEventHandler("stats", StatsReport.class,
+                (device, report) -> device.handleStatsUpdate(report.area, report.timeInSeconds));
+        addJsonEventHandler("waterinfo", WaterInfoReport.class,
+                (device, report) -> device.handleWaterInfoUpdate(report.waterPlatePresent != 0, report.waterAmount));
+
+        Map<String, JsonEventHandler<?>> routes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, JsonEventHandler<?>> entry : JSON_EVENT_HANDLERS.entrySet()) {
+            for (String prefix : new String[] { "", "on", "report" }) {
+                for (String suffix : new String[] { "", "_v2" }) {
+                    routes.put(prefix + entry.getKey() + suffix, entry.getValue());
+                }
+            }
+        }
+        JSON_EVENT_ROUTES = Collections.unmodifiableMap(routes);
+    }
+
     private final Logger logger = LoggerFactory.getLogger(EcovacsIotMqDevice.class);
 
     private final Device device;
     private final DeviceDescription desc;
-    private final String firmwareVersion;
+    private volatile @Nullable String firmwareVersion;
+    private @Nullable CompletableFuture<String> firmwareVersionFuture;
     private final EcovacsApiImpl api;
     private final Gson gson;
     private final MessageHandler messageHandler;
-    private Mqtt3AsyncClient mqttClient;
+    private final DeviceStateCache stateCache;
+    private final EventCoalescer eventCoalescer;
     private StateChangeListener listener;
 
     private int lastBatteryLevel;
@@ -67,15 +110,24 @@ public class EcovacsIotMqDevice implements EcovacsDevice {
     private boolean wasWaterSystemPresent;
     private MoppingWaterAmount lastWaterAmount;
 
-    EcovacsIotMqDevice(Device device, DeviceDescription desc, EcovacsApiImpl api, Gson gson)
-            throws EcovacsApiException {
+    private EcovacsIotMqDevice(Device device, DeviceDescription desc, EcovacsApiImpl api, Gson gson) {
         this.device = device;
         this.desc = desc;
-        this.firmwareVersion = api.sendIotCommand(device, desc, new GetFirmwareVersionCommand());
         this.api = api;
         this.gson = gson;
         this.messageHandler = desc.usesJsonApi ? new JsonMessageHandler() : new XmlMessageHandler();
-        api.fetchCleanLogs(device);
+        this.stateCache = new DeviceStateCache(api.getConfig().getStateCacheMaxAges());
+        this.eventCoalescer = new EventCoalescer(device.getDid(), api.getMqttConnectionManager().getEventPipeline(),
+                api.getScheduler(), api.getConfig().getEventCoalescingIntervals());
+    }
+
+    static CompletableFuture<EcovacsIotMqDevice> createAsync(Device device, DeviceDescription desc,
+            EcovacsApiImpl api, Gson gson, boolean eagerHydration) {
+        EcovacsIotMqDevice result = new EcovacsIotMqDevice(device, desc, api, gson);
+        if (!eagerHydration) {
+            return CompletableFuture.completedFuture(result);
+        }
+        return result.fetchFirmwareVersionAsync().thenApply(version -> result);
     }
 
     @Override
@@ -99,64 +151,137 @@ public class EcovacsIotMqDevice implements EcovacsDevice {
     }
 
     @Override
-    public String getFirmwareVersion() {
-        return firmwareVersion;
+    public String getFirmwareVersion() throws EcovacsApiException {
+        String version = firmwareVersion;
+        if (version != null) {
+            return version;
+        }
+        return CompletableFutureUtils.await(fetchFirmwareVersionAsync());
+    }
+
+    private synchronized CompletableFuture<String> fetchFirmwareVersionAsync() {
+        CompletableFuture<String> future = firmwareVersionFuture;
+        // Memoize successful and in-flight requests only, so that a failed request is retried on next access
+        if (future == null || future.isCompletedExceptionally()) {
+            future = api.sendIotCommandAsync(device, desc, new GetFirmwareVersionCommand()).thenApply(version -> {
+                firmwareVersion = version;
+                return version;
+            });
+            firmwareVersionFuture = future;
+        }
+        return future;
     }
 
     @Override
     public <T> T sendCommand(IotDeviceCommand<T> command) throws EcovacsApiException {
-        return api.sendIotCommand(device, desc, command);
+        T cached = getCachedResult(command);
+        if (cached != null) {
+            return cached;
+        }
+        long sentAtNanos = System.nanoTime();
+        T result = sendToDevice(command);
+        cacheResult(command, result, sentAtNanos);
+        return result;
     }
 
     @Override
     public <T> T sendCommand(MultiCommand<T> command) throws EcovacsApiException {
         IotDeviceCommand<?> next = command.getFirstCommand(!desc.usesJsonApi);
         while (next != null) {
-            next = command.processResultAndGetNextCommand(api.sendIotCommand(device, desc, next));
+            next = command.processResultAndGetNextCommand(sendToDevice(next));
         }
         return command.getResult();
     }
 
     @Override
-    public List<CleanLogRecord> getCleanLogs(int maxCount) throws EcovacsApiException {
-        return api.fetchCleanLogs(device).stream().sorted((lhs, rhs) -> Long.compare(rhs.timestamp, lhs.timestamp))
-                .limit(maxCount).map(record -> {
-                    byte[] mapImage = null;
-                    if (record.imageUrl != null) {
-                        try {
-                            mapImage = api.fetchDataFromurl(record.imageUrl);
-                        } catch (EcovacsApiException e) {
-                            logger.debug("Could not fetch clean log map for device " + getSerialNumber(), e);
-                        }
-                    }
-                    return new CleanLogRecord(record.timestamp, record.duration, record.area, mapImage, record.type);
-                }).collect(Collectors.toList());
+    public <T> CompletableFuture<T> sendCommandAsync(IotDeviceCommand<T> command) {
+        T cached = getCachedResult(command);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long sentAtNanos = System.nanoTime();
+        return sendToDeviceAsync(command, Thread.currentThread()).thenApply(result -> {
+            cacheResult(command, result, sentAtNanos);
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> @Nullable T getCachedResult(IotDeviceCommand<T> command) {
+        DeviceProperty property = CACHEABLE_COMMANDS.get(command.getClass());
+        if (property == null) {
+            return null;
+        }
+        Object value = stateCache.getFresh(property);
+        if (value != null) {
+            logger.trace("{}: Serving {} from state cache", getSerialNumber(), property);
+        }
+        return (T) value;
+    }
+
+    private <T> void cacheResult(IotDeviceCommand<T> command, @Nullable T result, long sentAtNanos) {
+        DeviceProperty property = CACHEABLE_COMMANDS.get(command.getClass());
+        if (property != null && result != null) {
+            stateCache.update(property, result, sentAtNanos);
+        }
     }
 
     @Override
-    public void connect(final StateChangeListener listener) throws EcovacsApiException {
-        EcovacsApiConfiguration config = api.getConfig();
-        PortalLoginResponse loginData = api.getLoginData();
-        if (loginData == null) {
-            throw new EcovacsApiException("Can not connect when not logged in");
+    public <T> CompletableFuture<T> sendCommandAsync(MultiCommand<T> command) {
+        return sendNextCommandAsync(command, command.getFirstCommand(!desc.usesJsonApi), Thread.currentThread());
+    }
+
+    private <T> CompletableFuture<T> sendNextCommandAsync(MultiCommand<T> command,
+            @Nullable IotDeviceCommand<?> next, Thread caller) {
+        if (next == null) {
+            return CompletableFuture.completedFuture(command.getResult());
         }
+        return sendToDeviceAsync(next, caller).thenCompose(
+                result -> sendNextCommandAsync(command, command.processResultAndGetNextCommand(result), caller));
+    }
 
-        // TOOD: use realm from config
-        String userName = loginData.getUserId() + "@ecouser";
-        String host = String.format("mq-%s.ecouser.net", config.getContinent());
+    private <T> T sendToDevice(IotDeviceCommand<T> command) throws EcovacsApiException {
+        try {
+            return api.sendIotCommand(device, desc, command);
+        } finally {
+            invalidateStateAfterWrite(command);
+        }
+    }
+
+    // The caller's thread sleeps for rate limits in RateLimitMode.BLOCK, as long as it is the one sending
+    private <T> CompletableFuture<T> sendToDeviceAsync(IotDeviceCommand<T> command, Thread caller) {
+        return api.sendIotCommandAsync(device, desc, command, caller)
+                .whenComplete((result, error) -> invalidateStateAfterWrite(command));
+    }
+
+    // A command changing the device may affect any cached property; failed commands may have been applied as well
+    private void invalidateStateAfterWrite(IotDeviceCommand<?> command) {
+        if (!command.isReadOnly()) {
+            stateCache.invalidate();
+        }
+    }
 
-        Mqtt3SimpleAuth auth = Mqtt3SimpleAuth.builder().username(userName).password(loginData.getToken().getBytes())
-                .build();
+    @Override
+    public List<CleanLogRecord> getCleanLogs(int maxCount) throws EcovacsApiException {
+        MapImageLoader imageLoader = api.getMapImageLoader();
+        return api.getCleanLogSync().getNewestRecords(device, maxCount).stream().map(record -> {
+            CleanLogImage mapImage = record.imageUrl != null ? imageLoader.createImage(record.imageUrl) : null;
+            return new CleanLogRecord(record.timestamp, record.duration, record.area, mapImage, record.type);
+        }).collect(Collectors.toList());
+    }
 
-        MqttClientSslConfig sslConfig = MqttClientSslConfig.builder().trustManagerFactory(createTrustManagerFactory())
-                .build();
+    @Override
+    public void connect(final StateChangeListener listener) throws EcovacsApiException {
+        if (api.getLoginData() == null) {
+            throw new EcovacsApiException("Can not connect when not logged in");
+        }
 
-        lastBatteryLevel = api.sendIotCommand(device, desc, new GetBatteryInfoCommand());
-        wasCharging = api.sendIotCommand(device, desc, new GetChargeStateCommand()) == ChargeMode.CHARGING;
-        lastCleanMode = api.sendIotCommand(device, desc, new GetCleanStateCommand());
+        lastBatteryLevel = sendCommand(new GetBatteryInfoCommand());
+        wasCharging = sendCommand(new GetChargeStateCommand()) == ChargeMode.CHARGING;
+        lastCleanMode = sendCommand(new GetCleanStateCommand());
         if (hasCapability(DeviceCapability.MOPPING_SYSTEM)) {
-            wasWaterSystemPresent = api.sendIotCommand(device, desc, new GetWaterSystemPresentCommand());
-            lastWaterAmount = api.sendIotCommand(device, desc, new GetMoppingWaterAmountCommand());
+            wasWaterSystemPresent = sendCommand(new GetWaterSystemPresentCommand());
+            lastWaterAmount = sendCommand(new GetMoppingWaterAmountCommand());
         }
 
         listener.onBatteryLevelChanged(this, lastBatteryLevel);
@@ -166,39 +291,37 @@ public class EcovacsIotMqDevice implements EcovacsDevice {
             listener.onWaterSystemChanged(this, wasWaterSystemPresent, lastWaterAmount);
         }
 
-        mqttClient = MqttClient.builder().useMqttVersion3().identifier(userName + "/" + loginData.getResource())
-                .simpleAuth(auth).serverHost(host).serverPort(8883).sslConfig(sslConfig).buildAsync();
-
-        mqttClient.connect().whenComplete((connAck, connError) -> {
-            if (connError != null) {
-                handleMqttError(connError);
-                return;
-            }
-
-            logger.debug("Established MQTT connection to device {}", getSerialNumber());
-            String topic = String.format("iot/atr/+/%s/%s/%s/+", device.getDid(), device.getDeviceClass(),
-                    device.getResource());
-            mqttClient.subscribeWith().topicFilter(topic).callback(publish -> {
-                String payload = new String(publish.getPayloadAsBytes());
+        api.getMqttConnectionManager().subscribe(device.getDid(), new MqttConnectionManager.Subscriber() {
+            @Override
+            public void handleMessage(String topic, ByteBuffer payload) {
                 try {
-                    messageHandler.handleMessage(publish.getTopic().toString(), payload);
+                    messageHandler.handleMessage(topic, payload);
                 } catch (Exception e) {
                     handleMqttError(e);
                 }
-            }).send().whenComplete((subAck, subError) -> {
-                if (subError != null) {
-                    handleMqttError(subError);
-                } else {
-                    this.listener = listener;
-                }
-            });
+            }
+
+            @Override
+            public void handleConnectionLost(Throwable cause) {
+                stateCache.setLive(false);
+                handleMqttError(cause);
+            }
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                listener.onDeviceConnectionFailed(this, error);
+            } else {
+                logger.debug("Subscribed to MQTT messages of device {}", getSerialNumber());
+                this.listener = listener;
+                // Only JSON devices push the cached properties, see JsonMessageHandler
+                stateCache.setLive(desc.usesJsonApi);
+            }
         });
     }
 
+    @Override
     public void disconnect() {
-        if (mqttClient != null) {
-            mqttClient.disconnect();
-        }
+        stateCache.setLive(false);
+        api.getMqttConnectionManager().unsubscribe(device.getDid());
     }
 
     private void handleMqttError(Throwable t) {
@@ -207,72 +330,54 @@ public class EcovacsIotMqDevice implements EcovacsDevice {
         }
     }
 
-    private TrustManagerFactory createTrustManagerFactory() {
-        final TrustManager noOpTrustManager = new X509TrustManager() {
-            @Override
-            public void checkClientTrusted(final X509Certificate[] chain, final String authType) {
-            }
-
-            @Override
-            public void checkServerTrusted(final X509Certificate[] chain, final String authType) {
-            }
-
-            @Override
-            public X509Certificate[] getAcceptedIssuers() {
-                return null;
-            }
-        };
-
-        return new SimpleTrustManagerFactory() {
-            @Override
-            protected void engineInit(KeyStore keyStore) throws Exception {
-            }
-
-            @Override
-            protected void engineInit(ManagerFactoryParameters managerFactoryParameters) throws Exception {
-            }
-
-            @Override
-            protected TrustManager[] engineGetTrustManagers() {
-                return new TrustManager[] { noOpTrustManager };
-            }
-        };
-    }
-
     private void handleBatteryLevelUpdate(int percent) {
+        stateCache.update(DeviceProperty.BATTERY_LEVEL, percent);
+        StateChangeListener listener = this.listener;
         if (listener != null && percent != lastBatteryLevel) {
             lastBatteryLevel = percent;
-            listener.onBatteryLevelChanged(this, percent);
+            eventCoalescer.submit(DeviceEventType.BATTERY_LEVEL, () -> listener.onBatteryLevelChanged(this, percent));
         }
     }
 
     private void handleChargingStateUpdate(boolean charging) {
+        // JSON devices only distinguish charging and idle, see GetChargeStateCommand
+        stateCache.update(DeviceProperty.CHARGE_MODE, charging ? ChargeMode.CHARGING : ChargeMode.IDLE);
+        StateChangeListener listener = this.listener;
         if (listener != null && charging != wasCharging) {
             wasCharging = charging;
-            listener.onChargingStateChanged(this, charging);
+            eventCoalescer.submit(DeviceEventType.CHARGING_STATE,
+                    () -> listener.onChargingStateChanged(this, charging));
         }
     }
 
     private void handleCleanModeUpdate(CleanMode mode) {
+        stateCache.update(DeviceProperty.CLEAN_MODE, mode);
+        StateChangeListener listener = this.listener;
         if (listener != null && mode != lastCleanMode) {
             lastCleanMode = mode;
-            listener.onCleaningModeChanged(this, mode);
+            eventCoalescer.submit(DeviceEventType.CLEANING_MODE, () -> listener.onCleaningModeChanged(this, mode));
         }
     }
 
     private void handleStatsUpdate(int area, int cleaningTimeInSeconds) {
+        StateChangeListener listener = this.listener;
         if (listener != null) {
-            listener.onCleaningStatsChanged(this, area, cleaningTimeInSeconds);
+            eventCoalescer.submit(DeviceEventType.CLEANING_STATS,
+                    () -> listener.onCleaningStatsChanged(this, area, cleaningTimeInSeconds));
         }
     }
 
     private void handleWaterInfoUpdate(boolean present, int level) {
         MoppingWaterAmount amount = MoppingWaterAmount.fromApiValue(level);
+        stateCache.update(DeviceProperty.WATER_SYSTEM_PRESENT, present);
+        stateCache.update(DeviceProperty.MOPPING_WATER_AMOUNT, amount);
+        StateChangeListener listener = this.listener;
         if (hasCapability(DeviceCapability.MOPPING_SYSTEM) && listener != null
                 && (wasWaterSystemPresent != present || lastWaterAmount != amount)) {
             wasWaterSystemPresent = present;
             lastWaterAmount = amount;
-            listener.onWaterSystemChanged(this, present, amount);
+            eventCoalescer.submit(DeviceEventType.WATER_SYSTEM,
+                    () -> listener.onWaterSystemChanged(this, present, amount));
         }
     }
 
@@ -283,92 +388,62 @@ public class EcovacsIotMqDevice implements EcovacsDevice {
     }
 
     private interface MessageHandler {
-        void handleMessage(String topic, String payload);
+        void handleMessage(String topic, ByteBuffer payload) throws IOException;
     }
 
     private class XmlMessageHandler implements MessageHandler {
         @Override
-        public void handleMessage(String topic, String payload) {
+        public void handleMessage(String topic, ByteBuffer payload) {
+        }
+    }
+
+    private static class JsonEventHandler<T> {
+        final Class<T> reportType;
+        final BiConsumer<EcovacsIotMqDevice, T> action;
+
+        JsonEventHandler(Class<T> reportType, BiConsumer<EcovacsIotMqDevice, T> action) {
+            this.reportType = reportType;
+            this.action = action;
+        }
+
+        void handle(EcovacsIotMqDevice device, Object report) {
+            action.accept(device, reportType.cast(report));
         }
     }
 
+    private static <T> void addJsonEventHandler(String eventName, Class<T> reportType,
+            BiConsumer<EcovacsIotMqDevice, T> action) {
+        JSON_EVENT_HANDLERS.put(eventName, new JsonEventHandler<>(reportType, action));
+    }
+
     private class JsonMessageHandler implements MessageHandler {
         @Override
-        public void handleMessage(String topic, String payload) {
-            String eventName = topic.split("/")[2].toLowerCase();
-            JsonResponsePayloadWrapper response = gson.fromJson(payload, JsonResponsePayloadWrapper.class);
-            if (response == null) {
+        public void handleMessage(String topic, ByteBuffer payload) throws IOException {
+            String topicEventName = MqttConnectionManager.getTopicLevel(topic, 2);
+            if (topicEventName == null) {
                 return;
             }
-            // TODO: update FW version?
-
-            if (eventName.startsWith("on")) {
-                eventName = eventName.substring(2);
-            } else if (eventName.startsWith("report")) {
-                eventName = eventName.substring(6);
-            }
-            if (eventName.endsWith("_v2")) {
-                eventName = eventName.substring(0, eventName.length() - 3);
+            JsonEventHandler<?> handler = JSON_EVENT_ROUTES.get(topicEventName);
+            if (logger.isTraceEnabled()) {
+                logger.trace("{}: Got MQTT message on topic {}: {}", getSerialNumber(), topic,
+                        StandardCharsets.UTF_8.decode(payload.duplicate()));
             }
 
-            logger.trace("{}: Got MQTT message on topic {}: {}", getSerialNumber(), topic, payload);
-
-            switch (eventName) {
-                case "battery": {
-                    BatteryReport report = payloadAs(response, BatteryReport.class);
-                    handleBatteryLevelUpdate(report.percent);
-                    break;
-                }
-                case "chargestate": {
-                    ChargeReport report = payloadAs(response, ChargeReport.class);
-                    handleChargingStateUpdate(report.isCharging != 0);
-                    break;
-                }
-                case "cleaninfo": {
-                    CleanReport report = payloadAs(response, CleanReport.class);
-                    handleCleanModeUpdate(report.determineCleanMode(gson));
-                    break;
-                }
-                case "error": {
-                    ErrorReport report = payloadAs(response, ErrorReport.class);
-                    if (!report.errorCodes.isEmpty()) {
-                        handleErrorReport(report.errorCodes.get(0));
-                    }
-                }
-                case "evt": {
-                    // EventReport report = payloadAs(reponse, EventReport.class);
-                    break;
-                }
-                case "lifespan": {
-                    // ComponentLifeSpanReport report = payloadAs(response, ComponentLifeSpanReport.class);
-                    break;
-                }
-                case "speed": {
-                    // SpeedReport report = payloadAs(response, SpeedReport.class);
-                    // SuctionPower power = SuctionPower.fromJsonValue(report.speedLevel);
-                    // TODO: report change
-                    break;
-                }
-                case "stats": {
-                    StatsReport report = payloadAs(response, StatsReport.class);
-                    handleStatsUpdate(report.area, report.timeInSeconds);
-                    break;
-                }
-                case "waterinfo": {
-                    WaterInfoReport report = payloadAs(response, WaterInfoReport.class);
-                    handleWaterInfoUpdate(report.waterPlatePresent != 0, report.waterAmount);
-                    break;
-                }
+            JsonPushMessageReader.PushMessage message = JsonPushMessageReader.read(payload, gson,
+                    handler != null ? handler.reportType : null);
+            JsonPayloadHeader header = message.header;
+            if (header != null && header.firmwareVersion != null) {
+                firmwareVersion = header.firmwareVersion;
             }
-        }
-
-        private <T> @NonNull T payloadAs(JsonResponsePayloadWrapper response, Class<T> clazz) {
-            @Nullable
-            T payload = gson.fromJson(response.body.payload, clazz);
-            if (payload == null) {
-                throw new NullPointerException();
+            if (handler == null) {
+                return;
+            }
+            Object report = message.payload;
+            if (report == null) {
+                logger.debug("{}: MQTT message on topic {} has no payload", getSerialNumber(), topic);
+                return;
             }
-            return payload;
+            handler.handle(EcovacsIotMqDevice.this, report);
         }
     }
 }
@@ -0,0 +1,83 @@
+package dev.pott.sucks.api.internal;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.util.thread.Scheduler;
+
+import dev.pott.sucks.api.DeviceEventType;
+
+/**
+ * Coalesces the listener notifications of one device: for each configured event type only the newest pending
+ * notification is delivered, once the events received before it have been handled and at most once per minimum
+ * interval. Must only be used from the dispatch thread of the device.
+ */
+@NonNullByDefault
+final class EventCoalescer {
+    private final String deviceId;
+    private final EventPipeline pipeline;
+    private final Scheduler scheduler;
+    private final Map<DeviceEventType, PendingNotification> pending = new EnumMap<>(DeviceEventType.class);
+
+    private final class PendingNotification implements Runnable {
+        final long minIntervalNanos;
+        @Nullable Runnable latest;
+        boolean flushQueued;
+        boolean emitted;
+        long lastEmitNanos;
+
+        PendingNotification(long minIntervalNanos) {
+            this.minIntervalNanos = minIntervalNanos;
+        }
+
+        void submit(Runnable notification) {
+            latest = notification;
+            if (flushQueued) {
+                return;
+            }
+            flushQueued = true;
+            long delayNanos = emitted ? lastEmitNanos + minIntervalNanos - System.nanoTime() : 0;
+            if (delayNanos > 0) {
+                scheduler.schedule(() -> pipeline.publishFlush(deviceId, this), delayNanos, TimeUnit.NANOSECONDS);
+            } else {
+                pipeline.publishFlush(deviceId, this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Runnable notification = latest;
+            latest = null;
+            flushQueued = false;
+            emitted = true;
+            lastEmitNanos = System.nanoTime();
+            if (notification != null) {
+                notification.run();
+            }
+        }
+    }
+
+    EventCoalescer(String deviceId, EventPipeline pipeline, Scheduler scheduler,
+            Map<DeviceEventType, Duration> minIntervals) {
+        this.deviceId = deviceId;
+        this.pipeline = pipeline;
+        this.scheduler = scheduler;
+        for (Map.Entry<DeviceEventType, Duration> entry : minIntervals.entrySet()) {
+            pending.put(entry.getKey(), new PendingNotification(entry.getValue().toNanos()));
+        }
+    }
+
+    // Runs the notification right away if the event type isn't coalesced
+    void submit(DeviceEventType eventType, Runnable notification) {
+        PendingNotification pendingNotification = pending.get(eventType);
+        if (pendingNotification != null) {
+            pendingNotification.submit(notification);
+        } else {
+            notification.run();
+        }
+    }
+}
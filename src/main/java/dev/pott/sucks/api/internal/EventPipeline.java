@@ -0,0 +1,274 @@
+package dev.pott.sucks.api.internal;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.pott.sucks.api.EventOverflowMode;
+import dev.pott.sucks.api.EventPipelineStatistics;
+import dev.pott.sucks.api.internal.MqttConnectionManager.Subscriber;
+
+/**
+ * Hands MQTT events over from the MQTT client's I/O thread to dispatch threads, so slow listeners don't hold up
+ * message reception. Each dispatch thread consumes a pre-allocated ring buffer; devices are assigned to a fixed ring,
+ * which keeps the events of a device in order.
+ */
+@NonNullByDefault
+final class EventPipeline {
+    // How long a producer backs off while waiting for space in a full ring
+    private static final long FULL_RING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Logger logger = LoggerFactory.getLogger(EventPipeline.class);
+    private final Ring[] rings;
+    private final EventOverflowMode overflowMode;
+
+    private static final class Slot {
+        @Nullable Subscriber subscriber;
+        @Nullable String topic;
+        @Nullable ByteBuffer payload;
+        @Nullable Throwable connectionLostCause;
+        long publishedAtNanos;
+    }
+
+    EventPipeline(int bufferSize, int threadCount, EventOverflowMode overflowMode) {
+        this.rings = new Ring[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            rings[i] = new Ring(bufferSize, "ecovacs-events-" + i);
+        }
+        this.overflowMode = overflowMode;
+    }
+
+    // Returns false if the message was dropped because the ring of the device is full
+    boolean publishMessage(String deviceId, Subscriber subscriber, String topic,
+            ByteBuffer payload) {
+        boolean published = getRing(deviceId).publish(subscriber, topic, payload, null,
+                overflowMode == EventOverflowMode.DROP);
+        if (!published) {
+            logger.debug("Dropped MQTT message on topic {}, event buffer is full", topic);
+        }
+        return published;
+    }
+
+    void publishConnectionLost(String deviceId, Subscriber subscriber, Throwable cause) {
+        getRing(deviceId).publish(subscriber, null, null, cause, false);
+    }
+
+    /**
+     * Runs a task on the dispatch thread of the device once the events received so far have been dispatched. Never
+     * blocks, so it may be called from the dispatch thread itself.
+     */
+    void publishFlush(String deviceId, Runnable flush) {
+        getRing(deviceId).publishFlush(flush);
+    }
+
+    // Stops the dispatch threads; events still queued are discarded and later ones are dropped
+    void shutdown() {
+        for (Ring ring : rings) {
+            ring.stop();
+        }
+    }
+
+    EventPipelineStatistics getStatistics() {
+        int capacity = 0;
+        int queued = 0;
+        long dispatched = 0;
+        long dropped = 0;
+        long totalWaitNanos = 0;
+        long maxWaitNanos = 0;
+        for (Ring ring : rings) {
+            capacity += ring.slots.length;
+            queued += ring.publishedSequence - ring.consumedSequence;
+            dispatched += ring.dispatchedCount;
+            dropped += ring.getDroppedCount();
+            totalWaitNanos += ring.totalWaitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, ring.maxWaitNanos);
+        }
+        Duration averageWait = Duration.ofNanos(dispatched > 0 ? totalWaitNanos / dispatched : 0);
+        return new EventPipelineStatistics(capacity, queued, dispatched, dropped, averageWait,
+                Duration.ofNanos(maxWaitNanos));
+    }
+
+    private Ring getRing(String deviceId) {
+        return rings[(deviceId.hashCode() & Integer.MAX_VALUE) % rings.length];
+    }
+
+    /**
+     * A single consumer ring buffer. Producers claim sequences under the ring's lock, but wait for space in a full
+     * ring without holding it; the consumer and statistics only read volatile fields and never lock. Slots are
+     * reused, so publishing doesn't allocate.
+     */
+    private final class Ring implements Runnable {
+        private final Slot[] slots;
+        private final int mask;
+        private final String threadName;
+        private final Queue<Runnable> flushes = new ConcurrentLinkedQueue<>();
+        // Guarded by this
+        private long nextSequence;
+        // Only written while holding the lock
+        private volatile long droppedCount;
+        private volatile boolean stopped;
+
+        private volatile @Nullable Thread consumer;
+        private volatile long publishedSequence = -1;
+        private volatile long consumedSequence = -1;
+        private volatile boolean consumerParked;
+        // Only written by the consumer thread
+        private volatile long dispatchedCount;
+        private volatile long totalWaitNanos;
+        private volatile long maxWaitNanos;
+
+        Ring(int size, String threadName) {
+            this.slots = new Slot[size];
+            for (int i = 0; i < size; i++) {
+                slots[i] = new Slot();
+            }
+            this.mask = size - 1;
+            this.threadName = threadName;
+        }
+
+        boolean publish(Subscriber subscriber, @Nullable String topic, @Nullable ByteBuffer payload,
+                @Nullable Throwable connectionLostCause, boolean mayDrop) {
+            while (true) {
+                synchronized (this) {
+                    if (stopped) {
+                        return false;
+                    }
+                    if (nextSequence - consumedSequence <= slots.length) {
+                        publishLocked(subscriber, topic, payload, connectionLostCause);
+                        return true;
+                    }
+                    if (mayDrop) {
+                        droppedCount++;
+                        return false;
+                    }
+                }
+                // Waits outside the lock, so other producers and stop() aren't held up by a full ring
+                LockSupport.parkNanos(FULL_RING_PARK_NANOS);
+            }
+        }
+
+        private void publishLocked(Subscriber subscriber, @Nullable String topic, @Nullable ByteBuffer payload,
+                @Nullable Throwable connectionLostCause) {
+            long sequence = nextSequence;
+            Slot slot = slots[(int) sequence & mask];
+            slot.subscriber = subscriber;
+            slot.topic = topic;
+            slot.payload = payload;
+            slot.connectionLostCause = connectionLostCause;
+            slot.publishedAtNanos = System.nanoTime();
+            nextSequence = sequence + 1;
+            publishedSequence = sequence;
+
+            Thread consumer = this.consumer;
+            if (consumer == null) {
+                consumer = new Thread(this, threadName);
+                consumer.setDaemon(true);
+                consumer.start();
+                this.consumer = consumer;
+            } else if (consumerParked) {
+                LockSupport.unpark(consumer);
+            }
+        }
+
+        synchronized void stop() {
+            stopped = true;
+            Thread consumer = this.consumer;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+
+        // Deliberately doesn't take the lock, so it never waits for producers
+        void publishFlush(Runnable flush) {
+            if (stopped) {
+                return;
+            }
+            flushes.add(flush);
+            Thread consumer = this.consumer;
+            if (consumer != null && consumerParked) {
+                LockSupport.unpark(consumer);
+            }
+        }
+
+        long getDroppedCount() {
+            return droppedCount;
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            while (!stopped) {
+                long available = publishedSequence;
+                if (available < next) {
+                    runFlushes();
+                    // Re-checked after announcing the park, so a concurrent publish either sees the flag or is seen
+                    consumerParked = true;
+                    if (publishedSequence < next && flushes.isEmpty() && !stopped) {
+                        LockSupport.park(this);
+                        // Dispatch threads are stopped through stop(), so interrupts are meaningless
+                        Thread.interrupted();
+                    }
+                    consumerParked = false;
+                    continue;
+                }
+                for (; next <= available && !stopped; next++) {
+                    dispatch(slots[(int) next & mask]);
+                    consumedSequence = next;
+                }
+                // Flushes run at the end of each batch, after any events which arrived while the previous one was
+                // dispatched
+                runFlushes();
+            }
+        }
+
+        private void runFlushes() {
+            Runnable flush;
+            while ((flush = flushes.poll()) != null) {
+                try {
+                    flush.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to dispatch coalesced MQTT event", e);
+                }
+            }
+        }
+
+        private void dispatch(Slot slot) {
+            long waitNanos = System.nanoTime() - slot.publishedAtNanos;
+            Subscriber subscriber = slot.subscriber;
+            String topic = slot.topic;
+            ByteBuffer payload = slot.payload;
+            Throwable connectionLostCause = slot.connectionLostCause;
+            // Don't keep payloads reachable until the slot is reused
+            slot.subscriber = null;
+            slot.topic = null;
+            slot.payload = null;
+            slot.connectionLostCause = null;
+
+            dispatchedCount++;
+            totalWaitNanos += waitNanos;
+            if (waitNanos > maxWaitNanos) {
+                maxWaitNanos = waitNanos;
+            }
+            if (subscriber == null) {
+                return;
+            }
+            try {
+                if (connectionLostCause != null) {
+                    subscriber.handleConnectionLost(connectionLostCause);
+                } else if (topic != null && payload != null) {
+                    subscriber.handleMessage(topic, payload);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Failed to dispatch MQTT event", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package dev.pott.sucks.api.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse.JsonPayloadHeader;
+
+/**
+ * Decodes JSON messages pushed by devices over MQTT straight from the received buffer, in one pass. The payload is
+ * decoded into the type of the event's handler; messages of events without handler only have their header decoded.
+ */
+@NonNullByDefault
+final class JsonPushMessageReader {
+    static final class PushMessage {
+        final @Nullable JsonPayloadHeader header;
+        final @Nullable Object payload;
+
+        PushMessage(@Nullable JsonPayloadHeader header, @Nullable Object payload) {
+            this.header = header;
+            this.payload = payload;
+        }
+    }
+
+    private JsonPushMessageReader() {
+        // Prevent instantiation
+    }
+
+    static PushMessage read(ByteBuffer buffer, Gson gson, @Nullable Type payloadType) throws IOException {
+        JsonReader reader = new JsonReader(new CharBufferReader(StandardCharsets.UTF_8.decode(buffer.duplicate())));
+        JsonPayloadHeader header = null;
+        Object payload = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("header".equals(name)) {
+                header = gson.fromJson(reader, JsonPayloadHeader.class);
+            } else if ("body".equals(name) && payloadType != null) {
+                payload = PortalIotCommandJsonResponseReader.readBodyData(reader, gson, payloadType);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new PushMessage(header, payload);
+    }
+
+    // Reads the remaining characters of an already decoded buffer, without the byte buffer and decoder state of an
+    // InputStreamReader
+    private static class CharBufferReader extends Reader {
+        private final CharBuffer buffer;
+
+        CharBufferReader(CharBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read(char @Nullable [] chars, int offset, int length) {
+            if (chars == null) {
+                throw new NullPointerException();
+            }
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(chars, offset, count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
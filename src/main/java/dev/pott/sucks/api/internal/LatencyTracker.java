@@ -0,0 +1,48 @@
+package dev.pott.sucks.api.internal;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Keeps a sliding window of the most recent latencies of an endpoint. Percentiles are read from a sorted copy of the
+ * window, which is refreshed after every few samples rather than on each query.
+ */
+@NonNullByDefault
+final class LatencyTracker {
+    private static final int WINDOW_SIZE = 256;
+    private static final int RESORT_INTERVAL = 16;
+
+    private final long[] samples = new long[WINDOW_SIZE];
+    private int sampleCount;
+    private int nextIndex;
+    private int unsortedCount;
+    private long[] sorted = new long[0];
+
+    synchronized void record(long latencyMillis) {
+        samples[nextIndex] = latencyMillis;
+        nextIndex = (nextIndex + 1) % WINDOW_SIZE;
+        if (sampleCount < WINDOW_SIZE) {
+            sampleCount++;
+        }
+        unsortedCount++;
+    }
+
+    synchronized int getSampleCount() {
+        return sampleCount;
+    }
+
+    // Returns -1 if there are no samples yet
+    synchronized long getPercentile(double quantile) {
+        if (sampleCount == 0) {
+            return -1;
+        }
+        if (unsortedCount >= RESORT_INTERVAL || sorted.length < Math.min(sampleCount, RESORT_INTERVAL)) {
+            sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            unsortedCount = 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
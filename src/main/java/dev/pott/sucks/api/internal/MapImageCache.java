@@ -0,0 +1,182 @@
+package dev.pott.sucks.api.internal;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import dev.pott.sucks.api.util.MD5Util;
+
+/**
+ * On-disk cache for clean log map images. Images are stored in files named after the hash of their URL; the URLs
+ * point to immutable images, so cached entries never need revalidation. When the cache exceeds its size limit, the
+ * least recently used images are evicted. Access order survives restarts through the files' modification times.
+ * <p>
+ * The index is guarded by the cache's lock, which is never held during file I/O apart from loading the index once.
+ * Files are read and written under one of several striped locks, so parallel downloads of different images don't
+ * wait for each other.
+ */
+@NonNullByDefault
+final class MapImageCache {
+    private static final String FILE_SUFFIX = ".png";
+    private static final int LOCK_STRIPES = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(MapImageCache.class);
+    private final Path directory;
+    private final long maxBytes;
+    private final Object[] fileLocks = new Object[LOCK_STRIPES];
+    // Sizes by file name, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private boolean indexLoaded;
+
+    MapImageCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            fileLocks[i] = new Object();
+        }
+    }
+
+    byte @Nullable [] get(String url) {
+        String fileName = fileNameForUrl(url);
+        synchronized (this) {
+            loadIndexIfNeeded();
+            // Also marks the entry as used
+            if (entries.get(fileName) == null) {
+                return null;
+            }
+        }
+        Path file = directory.resolve(fileName);
+        try {
+            synchronized (lockFor(fileName)) {
+                byte[] data = Files.readAllBytes(file);
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                return data;
+            }
+        } catch (NoSuchFileException e) {
+            synchronized (this) {
+                Long size = entries.remove(fileName);
+                if (size != null) {
+                    totalBytes -= size;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            logger.debug("Could not read cached map image {}", file, e);
+            return null;
+        }
+    }
+
+    void put(String url, byte[] data) {
+        if (data.length > maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            loadIndexIfNeeded();
+        }
+        String fileName = fileNameForUrl(url);
+        Path target = directory.resolve(fileName);
+        try {
+            synchronized (lockFor(fileName)) {
+                Files.createDirectories(directory);
+                Path tempFile = Files.createTempFile(directory, "image", ".tmp");
+                try {
+                    Files.write(tempFile, data);
+                    try {
+                        Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE,
+                                StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Could not cache map image {}", target, e);
+            return;
+        }
+        List<String> evicted;
+        synchronized (this) {
+            Long previousSize = entries.put(fileName, (long) data.length);
+            totalBytes += data.length - (previousSize != null ? previousSize : 0);
+            evicted = removeEldestEntries();
+        }
+        for (String evictedFileName : evicted) {
+            try {
+                synchronized (lockFor(evictedFileName)) {
+                    Files.deleteIfExists(directory.resolve(evictedFileName));
+                }
+            } catch (IOException e) {
+                // The file is indexed again on the next start
+                logger.debug("Could not evict cached map image {}", evictedFileName, e);
+            }
+        }
+    }
+
+    // Removes the least recently used entries until the cache fits its limit; their files are deleted by the caller
+    private List<String> removeEldestEntries() {
+        List<String> removed = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            totalBytes -= eldest.getValue();
+            removed.add(eldest.getKey());
+            iterator.remove();
+        }
+        return removed;
+    }
+
+    private Object lockFor(String fileName) {
+        return fileLocks[(fileName.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    private void loadIndexIfNeeded() {
+        if (indexLoaded) {
+            return;
+        }
+        indexLoaded = true;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Map<Path, BasicFileAttributes> found = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                found.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+            }
+        } catch (IOException e) {
+            logger.debug("Could not read map image cache directory {}", directory, e);
+            return;
+        }
+        List<Path> files = new ArrayList<>(found.keySet());
+        files.sort(Comparator.comparing((Path file) -> found.get(file).lastModifiedTime()));
+        for (Path file : files) {
+            long size = found.get(file).size();
+            entries.put(file.getFileName().toString(), size);
+            totalBytes += size;
+        }
+        // If the limit was lowered since the last start, the excess is evicted by the next put
+    }
+
+    private static String fileNameForUrl(String url) {
+        return MD5Util.getMD5Hash(url) + FILE_SUFFIX;
+    }
+}
@@ -0,0 +1,91 @@
+package dev.pott.sucks.api.internal;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import dev.pott.sucks.api.EcovacsApiException;
+import dev.pott.sucks.api.util.CompletableFutureUtils;
+import dev.pott.sucks.cleaner.CleanLogImage;
+
+/**
+ * Loads clean log map images from the on-disk cache or downloads them. Downloads run in parallel up to a configured
+ * limit, concurrent requests for the same image share one download.
+ */
+@NonNullByDefault
+final class MapImageLoader {
+    private final EcovacsApiImpl api;
+    private final @Nullable MapImageCache cache;
+    private final ConcurrencyLimiter downloadLimiter;
+    private final Executor executor;
+    private final Map<String, CompletableFuture<byte[]>> pendingLoads = new ConcurrentHashMap<>();
+
+    MapImageLoader(EcovacsApiImpl api, @Nullable MapImageCache cache, int maxConcurrentDownloads, Executor executor) {
+        this.api = api;
+        this.cache = cache;
+        this.downloadLimiter = new ConcurrencyLimiter(maxConcurrentDownloads, executor);
+        this.executor = executor;
+    }
+
+    CleanLogImage createImage(String url) {
+        return new LazyCleanLogImage(url);
+    }
+
+    CompletableFuture<byte[]> load(String url) {
+        CompletableFuture<byte[]> pending = pendingLoads.get(url);
+        if (pending != null) {
+            return pending;
+        }
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        pending = pendingLoads.putIfAbsent(url, result);
+        if (pending != null) {
+            return pending;
+        }
+        result.whenComplete((data, error) -> pendingLoads.remove(url, result));
+
+        // Cache access does disk I/O, so keep it off the caller's and the HTTP client's threads
+        CompletableFuture.supplyAsync(() -> {
+            MapImageCache cache = this.cache;
+            return cache != null ? cache.get(url) : null;
+        }, executor).thenCompose(cached -> {
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            return downloadLimiter.submit(() -> api.fetchDataFromUrlAsync(url)).thenApplyAsync(data -> {
+                MapImageCache cache = this.cache;
+                if (cache != null) {
+                    cache.put(url, data);
+                }
+                return data;
+            }, executor);
+        }).whenComplete(CompletableFutureUtils.completing(result));
+        return result;
+    }
+
+    private class LazyCleanLogImage implements CleanLogImage {
+        private final String url;
+
+        LazyCleanLogImage(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public String getUrl() {
+            return url;
+        }
+
+        @Override
+        public byte[] getPngData() throws EcovacsApiException {
+            return CompletableFutureUtils.await(load(url));
+        }
+
+        @Override
+        public CompletableFuture<byte[]> getPngDataAsync() {
+            return load(url);
+        }
+    }
+}
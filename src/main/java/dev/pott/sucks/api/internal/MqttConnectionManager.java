@@ -0,0 +1,225 @@
+package dev.pott.sucks.api.internal;
+
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.net.ssl.ManagerFactoryParameters;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.MqttClientSslConfig;
+import com.hivemq.client.mqtt.lifecycle.MqttClientDisconnectedContext;
+import com.hivemq.client.mqtt.lifecycle.MqttDisconnectSource;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+import com.hivemq.client.mqtt.mqtt3.message.auth.Mqtt3SimpleAuth;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+
+import dev.pott.sucks.api.EcovacsApiConfiguration;
+import dev.pott.sucks.api.EcovacsApiException;
+import dev.pott.sucks.api.internal.dto.response.portal.PortalLoginResponse;
+import dev.pott.sucks.api.util.CompletableFutureUtils;
+import io.netty.handler.ssl.util.SimpleTrustManagerFactory;
+
+/**
+ * The MQTT connection of one account. All devices share a single connection with a single wildcard subscription;
+ * messages are dispatched to devices by the device ID in their topic. The connection is opened when the first device
+ * subscribes and closed when the last one unsubscribes.
+ */
+@NonNullByDefault
+final class MqttConnectionManager {
+    // iot/atr/<event>/<did>/<class>/<resource>/<format>
+    private static final String TOPIC_FILTER = "iot/atr/#";
+    private static final int TOPIC_DEVICE_ID_LEVEL = 3;
+    private static final ByteBuffer EMPTY_PAYLOAD = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    // Called on an event dispatch thread, in the order the events of the device were received
+    interface Subscriber {
+        void handleMessage(String topic, ByteBuffer payload);
+
+        void handleConnectionLost(Throwable cause);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(MqttConnectionManager.class);
+    private final EcovacsApiImpl api;
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final EventPipeline eventPipeline;
+    private @Nullable Mqtt3AsyncClient client;
+    private @Nullable CompletableFuture<Void> connection;
+    private volatile boolean connected;
+
+    MqttConnectionManager(EcovacsApiImpl api) {
+        this.api = api;
+        EcovacsApiConfiguration config = api.getConfig();
+        this.eventPipeline = new EventPipeline(config.getEventBufferSize(), config.getEventDispatchThreads(),
+                config.getEventOverflowMode());
+    }
+
+    EventPipeline getEventPipeline() {
+        return eventPipeline;
+    }
+
+    // The returned future completes once messages for the device are received
+    CompletableFuture<Void> subscribe(String deviceId, Subscriber subscriber) {
+        subscribers.put(deviceId, subscriber);
+        return connect();
+    }
+
+    void unsubscribe(String deviceId) {
+        Mqtt3AsyncClient clientToClose = null;
+        synchronized (this) {
+            subscribers.remove(deviceId);
+            if (subscribers.isEmpty()) {
+                clientToClose = client;
+                client = null;
+                connection = null;
+                connected = false;
+            }
+        }
+        if (clientToClose != null) {
+            logger.debug("Closing MQTT connection, no devices left");
+            clientToClose.disconnect();
+        }
+    }
+
+    // Closes the connection regardless of remaining subscribers and stops dispatching their events
+    void close() {
+        Mqtt3AsyncClient clientToClose;
+        synchronized (this) {
+            subscribers.clear();
+            clientToClose = client;
+            client = null;
+            connection = null;
+            connected = false;
+        }
+        if (clientToClose != null) {
+            logger.debug("Closing MQTT connection");
+            clientToClose.disconnect();
+        }
+        eventPipeline.shutdown();
+    }
+
+    private synchronized CompletableFuture<Void> connect() {
+        CompletableFuture<Void> connection = this.connection;
+        if (connection != null && !connection.isCompletedExceptionally()) {
+            return connection;
+        }
+        PortalLoginResponse loginData = api.getLoginData();
+        if (loginData == null) {
+            return CompletableFutureUtils.failedFuture(new EcovacsApiException("Can not connect when not logged in"));
+        }
+
+        EcovacsApiEndpoints endpoints = api.getEndpoints();
+        // TOOD: use realm from config
+        String userName = loginData.getUserId() + "@ecouser";
+        Mqtt3SimpleAuth auth = Mqtt3SimpleAuth.builder().username(userName).password(loginData.getToken().getBytes())
+                .build();
+        MqttClientSslConfig sslConfig = MqttClientSslConfig.builder().trustManagerFactory(createTrustManagerFactory())
+                .build();
+        Mqtt3AsyncClient client = MqttClient.builder().useMqttVersion3()
+                .identifier(userName + "/" + loginData.getResource()).simpleAuth(auth).serverHost(endpoints.mqttHost)
+                .serverPort(endpoints.mqttPort).sslConfig(sslConfig)
+                .addDisconnectedListener(this::handleDisconnected).buildAsync();
+
+        connection = client.connect().thenCompose(
+                connAck -> client.subscribeWith().topicFilter(TOPIC_FILTER).callback(this::dispatch).send())
+                .thenApply(subAck -> {
+                    logger.debug("Established MQTT connection for {} devices", subscribers.size());
+                    connected = true;
+                    return null;
+                });
+        this.client = client;
+        this.connection = connection;
+        return connection;
+    }
+
+    private void dispatch(Mqtt3Publish publish) {
+        String topic = publish.getTopic().toString();
+        String deviceId = getTopicLevel(topic, TOPIC_DEVICE_ID_LEVEL);
+        Subscriber subscriber = deviceId != null ? subscribers.get(deviceId) : null;
+        if (subscriber == null) {
+            logger.trace("Ignoring MQTT message on topic {}", topic);
+            return;
+        }
+        eventPipeline.publishMessage(deviceId, subscriber, topic, publish.getPayload().orElse(EMPTY_PAYLOAD));
+    }
+
+    // Extracts a single level of a topic without splitting all of it
+    static @Nullable String getTopicLevel(String topic, int level) {
+        int start = 0;
+        for (int i = 0; i < level; i++) {
+            start = topic.indexOf('/', start) + 1;
+            if (start == 0) {
+                return null;
+            }
+        }
+        int end = topic.indexOf('/', start);
+        return topic.substring(start, end >= 0 ? end : topic.length());
+    }
+
+    private void handleDisconnected(MqttClientDisconnectedContext context) {
+        if (context.getSource() == MqttDisconnectSource.USER) {
+            return;
+        }
+        final List<Map.Entry<String, Subscriber>> affected;
+        synchronized (this) {
+            // A failed connection attempt is reported through the future returned by subscribe()
+            if (!connected) {
+                return;
+            }
+            connected = false;
+            client = null;
+            connection = null;
+            affected = new ArrayList<>(subscribers.entrySet());
+        }
+        logger.debug("MQTT connection lost", context.getCause());
+        for (Map.Entry<String, Subscriber> entry : affected) {
+            eventPipeline.publishConnectionLost(entry.getKey(), entry.getValue(), context.getCause());
+        }
+    }
+
+    private static TrustManagerFactory createTrustManagerFactory() {
+        final TrustManager noOpTrustManager = new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(final X509Certificate[] chain, final String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(final X509Certificate[] chain, final String authType) {
+            }
+
+            @Override
+            public X509Certificate @Nullable [] getAcceptedIssuers() {
+                return null;
+            }
+        };
+
+        return new SimpleTrustManagerFactory() {
+            @Override
+            protected void engineInit(@Nullable KeyStore keyStore) throws Exception {
+            }
+
+            @Override
+            protected void engineInit(@Nullable ManagerFactoryParameters managerFactoryParameters)
+                    throws Exception {
+            }
+
+            @Override
+            protected TrustManager[] engineGetTrustManagers() {
+                return new TrustManager[] { noOpTrustManager };
+            }
+        };
+    }
+}
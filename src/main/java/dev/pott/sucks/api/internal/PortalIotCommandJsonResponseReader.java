@@ -0,0 +1,111 @@
+package dev.pott.sucks.api.internal;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse;
+import dev.pott.sucks.api.internal.dto.response.portal.PortalIotCommandJsonResponse.JsonPayloadHeader;
+
+/**
+ * Decodes the portal response envelope of a JSON IOT command and the device's payload in one pass. The payload is
+ * decoded directly into the type requested by the command, without building an intermediate JSON tree.
+ */
+@NonNullByDefault
+final class PortalIotCommandJsonResponseReader {
+    private PortalIotCommandJsonResponseReader() {
+        // Prevent instantiation
+    }
+
+    static PortalIotCommandJsonResponse read(JsonReader reader, Gson gson, Type payloadType) throws IOException {
+        String id = null;
+        String result = null;
+        String failureMessage = null;
+        String errorCode = null;
+        String errorMessage = null;
+        JsonPayloadHeader header = null;
+        Object payload = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = nextString(reader);
+                    break;
+                case "ret":
+                    result = nextString(reader);
+                    break;
+                case "debug":
+                    failureMessage = nextString(reader);
+                    break;
+                case "errno":
+                    errorCode = nextString(reader);
+                    break;
+                case "error":
+                    errorMessage = nextString(reader);
+                    break;
+                case "resp":
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "header":
+                                header = gson.fromJson(reader, JsonPayloadHeader.class);
+                                break;
+                            case "body":
+                                payload = readBodyData(reader, gson, payloadType);
+                                break;
+                            default:
+                                reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new PortalIotCommandJsonResponse(id, result, failureMessage, errorCode, errorMessage, header, payload);
+    }
+
+    static @Nullable Object readBodyData(JsonReader reader, Gson gson, Type payloadType) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        Object data = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("data".equals(reader.nextName())) {
+                data = gson.fromJson(reader, payloadType);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return data;
+    }
+
+    private static @Nullable String nextString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+            return token == JsonToken.BOOLEAN ? String.valueOf(reader.nextBoolean()) : reader.nextString();
+        }
+        throw new JsonParseException("Unexpected " + token + " at " + reader.getPath());
+    }
+}
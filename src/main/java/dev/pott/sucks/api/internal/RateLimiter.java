@@ -0,0 +1,47 @@
+package dev.pott.sucks.api.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import dev.pott.sucks.api.EcovacsApiConfiguration;
+import dev.pott.sucks.api.RateLimit;
+
+/**
+ * Combines the account-wide limit with the limit of the endpoint a request goes to. One API instance represents one
+ * account, so the account bucket is shared by all requests of the instance.
+ */
+@NonNullByDefault
+final class RateLimiter {
+    private final @Nullable TokenBucket accountBucket;
+    private final Map<String, TokenBucket> endpointBuckets = new ConcurrentHashMap<>();
+
+    RateLimiter(EcovacsApiConfiguration configuration) {
+        RateLimit accountLimit = configuration.getAccountRateLimit();
+        this.accountBucket = accountLimit != null ? new TokenBucket(accountLimit) : null;
+        for (Map.Entry<String, RateLimit> entry : configuration.getEndpointRateLimits().entrySet()) {
+            endpointBuckets.put(entry.getKey(), new TokenBucket(entry.getValue()));
+        }
+    }
+
+    // Returns the nanoseconds to wait before sending a request to the endpoint, or -1 if that would exceed the given
+    // maximum; in that case no permit is taken
+    long reserve(String endpointName, long maxWaitNanos) {
+        TokenBucket endpointBucket = endpointBuckets.get(endpointName);
+        long endpointWaitNanos = endpointBucket != null ? endpointBucket.reserve(maxWaitNanos) : 0;
+        if (endpointWaitNanos < 0) {
+            return -1;
+        }
+        TokenBucket accountBucket = this.accountBucket;
+        long accountWaitNanos = accountBucket != null ? accountBucket.reserve(maxWaitNanos) : 0;
+        if (accountWaitNanos < 0) {
+            if (endpointBucket != null) {
+                endpointBucket.release();
+            }
+            return -1;
+        }
+        return Math.max(endpointWaitNanos, accountWaitNanos);
+    }
+}
@@ -0,0 +1,80 @@
+package dev.pott.sucks.api.internal;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.api.Request;
+
+import dev.pott.sucks.api.util.MD5Util;
+
+/**
+ * Signs requests to the Ecovacs main API. The signature is the MD5 hash of the client key, all request parameters
+ * sorted by name in 'name=value' form and the client secret. Parameters which are the same for all requests are
+ * sorted once on construction and merged with the request specific ones while signing.
+ */
+@NonNullByDefault
+final class RequestSigner {
+    private static final ThreadLocal<StringBuilder> SIGN_TEXT_BUILDER = ThreadLocal
+            .withInitial(() -> new StringBuilder(512));
+
+    private final String clientKey;
+    private final String clientSecret;
+    private final String[] staticNames;
+    private final String[] staticValues;
+
+    RequestSigner(String clientKey, String clientSecret, Map<String, String> staticParameters) {
+        this.clientKey = clientKey;
+        this.clientSecret = clientSecret;
+        TreeMap<String, String> sortedParameters = new TreeMap<>(staticParameters);
+        this.staticNames = sortedParameters.keySet().toArray(new String[0]);
+        this.staticValues = sortedParameters.values().toArray(new String[0]);
+    }
+
+    void signAndApply(Request request, Map<String, String> parameters) {
+        sign(parameters, System.currentTimeMillis(), request::param);
+    }
+
+    /**
+     * Passes all request parameters, including static parameters, timestamp, app key and signature to the given
+     * consumer.
+     */
+    void sign(Map<String, String> parameters, long timestamp, BiConsumer<String, String> parameterConsumer) {
+        String[] names = parameters.keySet().toArray(new String[parameters.size() + 1]);
+        names[names.length - 1] = RequestQueryParameter.AUTH_TIMESPAN;
+        Arrays.sort(names);
+        String timestampValue = String.valueOf(timestamp);
+
+        StringBuilder signText = SIGN_TEXT_BUILDER.get();
+        signText.setLength(0);
+        signText.append(clientKey);
+        int staticIndex = 0;
+        for (String name : names) {
+            while (staticIndex < staticNames.length && staticNames[staticIndex].compareTo(name) < 0) {
+                appendParameter(signText, staticNames[staticIndex], staticValues[staticIndex], parameterConsumer);
+                staticIndex++;
+            }
+            if (staticIndex < staticNames.length && staticNames[staticIndex].equals(name)) {
+                throw new IllegalArgumentException("Parameter " + name + " is set for all requests already");
+            }
+            String value = name.equals(RequestQueryParameter.AUTH_TIMESPAN) ? timestampValue : parameters.get(name);
+            appendParameter(signText, name, value, parameterConsumer);
+        }
+        while (staticIndex < staticNames.length) {
+            appendParameter(signText, staticNames[staticIndex], staticValues[staticIndex], parameterConsumer);
+            staticIndex++;
+        }
+        signText.append(clientSecret);
+
+        parameterConsumer.accept(RequestQueryParameter.AUTH_APPKEY, clientKey);
+        parameterConsumer.accept(RequestQueryParameter.AUTH_SIGN, MD5Util.getMD5Hash(signText.toString()));
+    }
+
+    private static void appendParameter(StringBuilder signText, String name, String value,
+            BiConsumer<String, String> parameterConsumer) {
+        signText.append(name).append('=').append(value);
+        parameterConsumer.accept(name, value);
+    }
+}
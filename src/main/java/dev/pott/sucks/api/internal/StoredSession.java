@@ -0,0 +1,23 @@
+package dev.pott.sucks.api.internal;
+
+import com.google.gson.annotations.SerializedName;
+
+import dev.pott.sucks.api.internal.dto.response.main.AccessData;
+import dev.pott.sucks.api.internal.dto.response.portal.PortalLoginResponse;
+
+public class StoredSession {
+    @SerializedName("accessData")
+    public final AccessData accessData;
+
+    @SerializedName("loginData")
+    public final PortalLoginResponse loginData;
+
+    @SerializedName("createdAt")
+    public final long createdAtMillis;
+
+    public StoredSession(AccessData accessData, PortalLoginResponse loginData, long createdAtMillis) {
+        this.accessData = accessData;
+        this.loginData = loginData;
+        this.createdAtMillis = createdAtMillis;
+    }
+}
@@ -0,0 +1,44 @@
+package dev.pott.sucks.api.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import dev.pott.sucks.api.RateLimit;
+
+/**
+ * Token bucket handing out reservations: a permit is taken immediately, and if the bucket is empty the caller is told
+ * how long to wait before using it. Outstanding reservations are kept as negative tokens, so waits of later callers
+ * queue up behind them.
+ */
+@NonNullByDefault
+final class TokenBucket {
+    private final double permitsPerNano;
+    private final int burst;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(RateLimit limit) {
+        this.permitsPerNano = limit.getPermitsPerSecond() / 1e9;
+        this.burst = limit.getBurst();
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    // Returns the nanoseconds to wait before the permit may be used, or -1 without taking a permit if the wait would
+    // exceed the given maximum
+    synchronized long reserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+        long waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    // Returns a reservation which ends up unused
+    synchronized void release() {
+        tokens = Math.min(burst, tokens + 1);
+    }
+}
@@ -16,9 +16,15 @@ public class PortalCleanLogsRequest {
     @SerializedName("resource")
     final String targetResource;
 
-    public PortalCleanLogsRequest(PortalAuthRequestParameter auth, String targetDeviceId, String targetResource) {
+    // Maximum number of (newest) records to return
+    @SerializedName("count")
+    final int count;
+
+    public PortalCleanLogsRequest(PortalAuthRequestParameter auth, String targetDeviceId, String targetResource,
+            int count) {
         this.auth = auth;
         this.targetDeviceId = targetDeviceId;
         this.targetResource = targetResource;
+        this.count = count;
     }
 }
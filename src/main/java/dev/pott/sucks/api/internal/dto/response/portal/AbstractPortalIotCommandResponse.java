@@ -1,5 +1,7 @@
 package dev.pott.sucks.api.internal.dto.response.portal;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.google.gson.annotations.SerializedName;
 
 public class AbstractPortalIotCommandResponse {
@@ -12,12 +14,25 @@ public class AbstractPortalIotCommandResponse {
     @SerializedName("debug")
     private final String failureMessage;
 
+    @SerializedName("errno")
+    private @Nullable String errorCode;
+
+    @SerializedName("error")
+    private @Nullable String errorMessage;
+
     public AbstractPortalIotCommandResponse(String id, String result, String failureMessage) {
         this.id = id;
         this.result = result;
         this.failureMessage = failureMessage;
     }
 
+    public AbstractPortalIotCommandResponse(String id, String result, String failureMessage,
+            @Nullable String errorCode, @Nullable String errorMessage) {
+        this(id, result, failureMessage);
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+    }
+
     public boolean wasSuccessful() {
         return "ok".equals(result);
     }
@@ -25,4 +40,16 @@ public class AbstractPortalIotCommandResponse {
     public String getFailureMessage() {
         return failureMessage;
     }
+
+    public @Nullable String getErrorCode() {
+        return errorCode;
+    }
+
+    public @Nullable String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean failedDueToAuthProblem() {
+        return AbstractPortalResponse.isAuthError(errorCode, errorMessage);
+    }
 }
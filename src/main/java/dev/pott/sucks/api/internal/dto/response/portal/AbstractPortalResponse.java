@@ -1,5 +1,7 @@
 package dev.pott.sucks.api.internal.dto.response.portal;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.google.gson.annotations.SerializedName;
 
 public abstract class AbstractPortalResponse {
@@ -10,6 +12,12 @@ public abstract class AbstractPortalResponse {
     @SerializedName("result")
     private final String result;
 
+    @SerializedName("errno")
+    private @Nullable String errorCode;
+
+    @SerializedName("error")
+    private @Nullable String errorMessage;
+
     protected AbstractPortalResponse(String todo, String result) {
         this.todo = todo;
         this.result = result;
@@ -18,4 +26,18 @@ public abstract class AbstractPortalResponse {
     public boolean wasSuccessful() {
         return "ok".equals(result);
     }
+
+    public @Nullable String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean failedDueToAuthProblem() {
+        return isAuthError(errorCode, errorMessage);
+    }
+
+    // The portal reports rejected sessions the same way for all of its response types
+    static boolean isAuthError(@Nullable String errorCode, @Nullable String errorMessage) {
+        return "3".equals(errorCode) || "0003".equals(errorCode) || (errorMessage != null
+                && (errorMessage.contains("auth error") || errorMessage.contains("token error")));
+    }
 }
@@ -2,6 +2,8 @@ package dev.pott.sucks.api.internal.dto.response.portal;
 
 import java.util.List;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.google.gson.annotations.SerializedName;
 
 import dev.pott.sucks.cleaner.CleanMode;
@@ -40,6 +42,14 @@ public class PortalCleanLogsResponse {
     @SerializedName("ret")
     final String result;
 
+    @SerializedName("errno")
+    @Nullable
+    String errorCode;
+
+    @SerializedName("error")
+    @Nullable
+    String errorMessage;
+
     PortalCleanLogsResponse(String result, List<LogRecord> records) {
         this.result = result;
         this.records = records;
@@ -48,4 +58,8 @@ public class PortalCleanLogsResponse {
     public boolean wasSuccessful() {
         return "ok".equals(result);
     }
+
+    public boolean failedDueToAuthProblem() {
+        return AbstractPortalResponse.isAuthError(errorCode, errorMessage);
+    }
 }
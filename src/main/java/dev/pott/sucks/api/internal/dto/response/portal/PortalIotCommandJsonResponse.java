@@ -7,31 +7,43 @@ import com.google.gson.JsonElement;
 import com.google.gson.annotations.SerializedName;
 
 public class PortalIotCommandJsonResponse extends AbstractPortalIotCommandResponse {
-    @SerializedName("resp")
-    private final JsonElement response;
+    private final @Nullable JsonPayloadHeader header;
+    private final @Nullable Object payload;
+
+    public PortalIotCommandJsonResponse(String id, String result, String failureMessage, @Nullable String errorCode,
+            @Nullable String errorMessage, @Nullable JsonPayloadHeader header, @Nullable Object payload) {
+        super(id, result, failureMessage, errorCode, errorMessage);
+        this.header = header;
+        this.payload = payload;
+    }
 
-    public PortalIotCommandJsonResponse(String id, String result, JsonElement response, String failureMessage) {
-        super(id, result, failureMessage);
-        this.response = response;
+    public @Nullable JsonPayloadHeader getResponseHeader() {
+        return header;
     }
 
+    // The payload was already decoded into the command's payload type, only untyped payloads are converted here
     public <T> T getResponsePayloadAs(Gson gson, Class<T> clazz) {
-        JsonElement payloadRaw = getResponsePayload(gson);
-        @Nullable
-        T payload = gson.fromJson(payloadRaw, clazz);
+        Object payload = this.payload;
         if (payload == null) {
             throw new NullPointerException();
         }
-        return payload;
+        if (clazz.isInstance(payload)) {
+            return clazz.cast(payload);
+        }
+        @Nullable
+        T converted = gson.fromJson(getResponsePayload(gson), clazz);
+        if (converted == null) {
+            throw new NullPointerException();
+        }
+        return converted;
     }
 
     public JsonElement getResponsePayload(Gson gson) {
-        @Nullable
-        JsonResponsePayloadWrapper wrapper = gson.fromJson(response, JsonResponsePayloadWrapper.class);
-        if (wrapper == null) {
+        Object payload = this.payload;
+        if (payload == null) {
             throw new NullPointerException();
         }
-        return wrapper.body.payload;
+        return payload instanceof JsonElement ? (JsonElement) payload : gson.toJsonTree(payload);
     }
 
     public static class JsonPayloadHeader {
@@ -46,20 +58,4 @@ public class PortalIotCommandJsonResponse extends AbstractPortalIotCommandRespon
         @SerializedName("hwVer")
         public String hardwareVersion;
     }
-
-    public static class JsonResponsePayloadWrapper {
-        @SerializedName("header")
-        public JsonPayloadHeader header;
-        @SerializedName("body")
-        public JsonResponsePayloadBody body;
-    }
-
-    public static class JsonResponsePayloadBody {
-        @SerializedName("code")
-        public int code;
-        @SerializedName("msg")
-        public String message;
-        @SerializedName("data")
-        public JsonElement payload;
-    }
 }
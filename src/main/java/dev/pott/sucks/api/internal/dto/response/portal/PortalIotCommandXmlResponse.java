@@ -1,11 +1,17 @@
 package dev.pott.sucks.api.internal.dto.response.portal;
 
+import javax.xml.stream.XMLStreamException;
+
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.google.gson.annotations.SerializedName;
 
 public class PortalIotCommandXmlResponse extends AbstractPortalIotCommandResponse {
     @SerializedName("resp")
     private final String responseXml;
 
+    private transient @Nullable XmlResponsePayload responsePayload;
+
     public PortalIotCommandXmlResponse(String id, String result, String responseXml, String failureMessage) {
         super(id, result, failureMessage);
         this.responseXml = responseXml;
@@ -14,4 +20,13 @@ public class PortalIotCommandXmlResponse extends AbstractPortalIotCommandRespons
     public String getResponsePayloadXml() {
         return responseXml;
     }
+
+    public XmlResponsePayload getResponsePayload() throws XMLStreamException {
+        XmlResponsePayload payload = responsePayload;
+        if (payload == null) {
+            payload = XmlResponsePayload.parse(responseXml);
+            responsePayload = payload;
+        }
+        return payload;
+    }
 }
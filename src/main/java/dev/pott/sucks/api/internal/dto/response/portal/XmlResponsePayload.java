@@ -0,0 +1,150 @@
+package dev.pott.sucks.api.internal.dto.response.portal;
+
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Attribute view of an XML command response. The payload is parsed once with StAX; lookups follow the semantics of
+ * the XPath expressions commands used before, e.g. {@code getAttribute("battery", "power")} for
+ * {@code //battery/@power}, matching in document order.
+ */
+public final class XmlResponsePayload {
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final List<XmlElement> elements;
+
+    private XmlResponsePayload(List<XmlElement> elements) {
+        this.elements = elements;
+    }
+
+    public static XmlResponsePayload parse(String xml) throws XMLStreamException {
+        List<XmlElement> elements = new ArrayList<>();
+        Deque<XmlElement> openElements = new ArrayDeque<>();
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT: {
+                        int count = reader.getAttributeCount();
+                        Map<String, String> attributes = count == 0 ? Collections.emptyMap() : new HashMap<>(count);
+                        for (int i = 0; i < count; i++) {
+                            attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                        }
+                        XmlElement element = new XmlElement(reader.getLocalName(), attributes);
+                        elements.add(element);
+                        openElements.push(element);
+                        break;
+                    }
+                    case XMLStreamConstants.END_ELEMENT:
+                        openElements.pop();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        // Like DOM's getTextContent(), text belongs to all enclosing elements
+                        for (XmlElement element : openElements) {
+                            element.text.append(reader.getText());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return new XmlResponsePayload(elements);
+    }
+
+    // //@attribute
+    public @Nullable String findAttribute(String attribute) {
+        for (XmlElement element : elements) {
+            String value = element.attributes.get(attribute);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    // //element/@attribute
+    public @Nullable String findAttribute(String element, String attribute) {
+        for (XmlElement candidate : elements) {
+            if (candidate.name.equals(element)) {
+                String value = candidate.attributes.get(attribute);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+
+    public String getAttribute(String attribute) throws NoSuchElementException {
+        return required(findAttribute(attribute), "@" + attribute);
+    }
+
+    public String getAttribute(String element, String attribute) throws NoSuchElementException {
+        return required(findAttribute(element, attribute), element + "/@" + attribute);
+    }
+
+    public List<String> getAttributes(String element, String attribute) {
+        List<String> values = new ArrayList<>();
+        for (XmlElement candidate : elements) {
+            String value = candidate.attributes.get(attribute);
+            if (value != null && candidate.name.equals(element)) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    // Text content of //element[@attribute='value']
+    public String getElementText(String element, String attribute, String value) throws NoSuchElementException {
+        for (XmlElement candidate : elements) {
+            if (candidate.name.equals(element) && value.equals(candidate.attributes.get(attribute))) {
+                return candidate.text.toString();
+            }
+        }
+        throw new NoSuchElementException("No match for " + element + "[@" + attribute + "='" + value + "']");
+    }
+
+    private static String required(@Nullable String value, String expression) throws NoSuchElementException {
+        if (value == null) {
+            throw new NoSuchElementException("No match for //" + expression);
+        }
+        return value;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private static final class XmlElement {
+        final String name;
+        final Map<String, String> attributes;
+        final StringBuilder text = new StringBuilder();
+
+        XmlElement(String name, Map<String, String> attributes) {
+            this.name = name;
+            this.attributes = attributes;
+        }
+    }
+}
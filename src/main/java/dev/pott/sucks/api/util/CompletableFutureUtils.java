@@ -0,0 +1,86 @@
+package dev.pott.sucks.api.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+import org.eclipse.jetty.util.thread.Scheduler;
+
+import dev.pott.sucks.api.EcovacsApiException;
+
+public class CompletableFutureUtils {
+
+    private CompletableFutureUtils() {
+        // Prevent instantiation of util class
+    }
+
+    public static <T> CompletableFuture<T> failedFuture(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * Returns a future failing with a {@link TimeoutException} if the given one doesn't complete in time. The given
+     * future is not cancelled and keeps running after a timeout.
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, Scheduler scheduler,
+            long timeoutMillis) {
+        if (future.isDone()) {
+            return future;
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Scheduler.Task timeoutTask = scheduler.schedule(
+                () -> result.completeExceptionally(new TimeoutException("Timed out after " + timeoutMillis + " ms")),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((value, error) -> {
+            timeoutTask.cancel();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns a callback for {@link CompletableFuture#whenComplete} that completes the target future with the
+     * outcome of the future the callback is registered on.
+     */
+    public static <T> BiConsumer<T, Throwable> completing(CompletableFuture<T> target) {
+        return (value, error) -> {
+            if (error != null) {
+                target.completeExceptionally(asApiException(error));
+            } else {
+                target.complete(value);
+            }
+        };
+    }
+
+    public static <T> T await(CompletableFuture<T> future) throws EcovacsApiException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EcovacsApiException(e);
+        } catch (ExecutionException e) {
+            throw asApiException(e.getCause());
+        }
+    }
+
+    public static EcovacsApiException asApiException(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof EcovacsApiException) {
+            return (EcovacsApiException) cause;
+        }
+        return new EcovacsApiException(cause);
+    }
+}
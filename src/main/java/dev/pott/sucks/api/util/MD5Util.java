@@ -10,28 +10,33 @@ public class MD5Util {
 
     private static final Logger logger = LoggerFactory.getLogger(MD5Util.class);
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    // MessageDigest instances are not thread safe, but creating them is expensive, so keep one per thread
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            logger.error("Could not get MD5 MessageDigest instance", e);
+            return null;
+        }
+    });
+
     private MD5Util() {
         // Prevent instantiation of util class
     }
 
     public static String getMD5Hash(String input) {
-        MessageDigest md;
-        try {
-            md = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            logger.error("Could not get MD5 MessageDigest instance", e);
+        MessageDigest md = DIGEST.get();
+        if (md == null) {
             return null;
         }
-        md.update(input.getBytes());
-        byte[] hash = md.digest();
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : hash) {
-            if ((0xff & b) < 0x10) {
-                hexString.append("0").append(Integer.toHexString((0xFF & b)));
-            } else {
-                hexString.append(Integer.toHexString(0xFF & b));
-            }
+        byte[] hash = md.digest(input.getBytes());
+        char[] hexChars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hexChars[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0x0f];
+            hexChars[2 * i + 1] = HEX_DIGITS[hash[i] & 0x0f];
         }
-        return hexString.toString();
+        return new String(hexChars);
     }
 }
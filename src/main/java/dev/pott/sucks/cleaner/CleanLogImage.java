@@ -0,0 +1,17 @@
+package dev.pott.sucks.cleaner;
+
+import java.util.concurrent.CompletableFuture;
+
+import dev.pott.sucks.api.EcovacsApiException;
+
+/**
+ * Handle to the map image of a clean log record. The image is only downloaded when requested and isn't retained by
+ * the handle; downloaded images are kept in the on-disk image cache if one is configured.
+ */
+public interface CleanLogImage {
+    String getUrl();
+
+    byte[] getPngData() throws EcovacsApiException;
+
+    CompletableFuture<byte[]> getPngDataAsync();
+}
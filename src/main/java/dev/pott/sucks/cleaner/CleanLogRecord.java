@@ -6,14 +6,14 @@ public class CleanLogRecord {
     public final Date timestamp;
     public final long cleaningDuration;
     public final int cleanedArea;
-    public final byte[] mapImagePngData;
+    public final CleanLogImage mapImage;
     public final CleanMode mode;
 
-    public CleanLogRecord(long timestamp, long duration, int area, byte[] mapData, CleanMode mode) {
+    public CleanLogRecord(long timestamp, long duration, int area, CleanLogImage mapImage, CleanMode mode) {
         this.timestamp = new Date(timestamp * 1000);
         this.cleaningDuration = duration;
         this.cleanedArea = area;
-        this.mapImagePngData = mapData;
+        this.mapImage = mapImage;
         this.mode = mode;
     }
 }